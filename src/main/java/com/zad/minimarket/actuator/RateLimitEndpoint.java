@@ -0,0 +1,51 @@
+package com.zad.minimarket.actuator;
+
+import com.zad.minimarket.service.RateLimitingService;
+import com.zad.minimarket.service.RateLimitingService.Level;
+import com.zad.minimarket.service.RateLimitingService.Limit;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Reads and changes the order rate limits at runtime, at {@code /actuator/ratelimits}.
+ * Changes apply to this node only and last until it restarts.
+ */
+@Component
+@Endpoint(id = "ratelimits")
+public class RateLimitEndpoint {
+
+    private final RateLimitingService rateLimitingService;
+
+    public RateLimitEndpoint(RateLimitingService rateLimitingService) {
+        this.rateLimitingService = rateLimitingService;
+    }
+
+    @ReadOperation
+    public Map<Level, Limit> limits() {
+        return rateLimitingService.getLimits();
+    }
+
+    @ReadOperation
+    public Limit limit(@Selector Level level) {
+        return rateLimitingService.getLimits().get(level);
+    }
+
+    /**
+     * Set a level's limit; 0 requests per second turns the symbol or global level off
+     */
+    @WriteOperation
+    public Limit updateLimit(@Selector Level level, int requestsPerSecond, int burst) {
+        try {
+            rateLimitingService.updateLimit(level, new Limit(requestsPerSecond, burst));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        return rateLimitingService.getLimits().get(level);
+    }
+}
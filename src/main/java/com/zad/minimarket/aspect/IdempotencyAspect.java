@@ -1,46 +1,88 @@
 package com.zad.minimarket.aspect;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zad.minimarket.annotation.Idempotent;
-import com.zad.minimarket.dto.OrderResponse;
+import com.zad.minimarket.dto.IdempotentResponse;
 import com.zad.minimarket.service.IdempotencyService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.io.IOException;
+
+/**
+ * Runs an {@link Idempotent} handler once per key. The first successful response is rendered
+ * to JSON once, stored with its status and sent as bytes; duplicates get those bytes written
+ * straight to the servlet response without going through Jackson again.
+ */
 @Aspect
 @Component
 public class IdempotencyAspect {
 
     private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
-    public IdempotencyAspect(IdempotencyService idempotencyService) {
+    public IdempotencyAspect(IdempotencyService idempotencyService, ObjectMapper objectMapper) {
         this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
     }
 
     @Around("@annotation(idempotent)")
     public Object handleIdempotency(ProceedingJoinPoint joinPoint, Idempotent idempotent) throws Throwable {
-        HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        HttpServletRequest request = attributes.getRequest();
         String idempotencyKey = request.getHeader(idempotent.keyHeader());
 
-        if (idempotencyKey != null && !idempotencyKey.isEmpty() && idempotencyService.isKeyProcessed(idempotencyKey)) {
-            OrderResponse cachedResponse = idempotencyService.getProcessedOrderResponse(idempotencyKey);
-            return ResponseEntity.ok(cachedResponse);
+        if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return joinPoint.proceed();
         }
 
-        Object result = joinPoint.proceed();
+        IdempotencyService.Reservation reservation = idempotencyService.reserve(idempotencyKey);
+        if (!reservation.owner()) {
+            replay(reservation.response(), attributes.getResponse());
+            // The response is already written, so there is nothing left for Spring MVC to render
+            return null;
+        }
 
-        if (idempotencyKey != null && !idempotencyKey.isEmpty() && result instanceof ResponseEntity) {
-            ResponseEntity<?> responseEntity = (ResponseEntity<?>) result;
-            if (responseEntity.getStatusCode().is2xxSuccessful() && responseEntity.getBody() instanceof OrderResponse) {
-                idempotencyService.saveOrderResponse(idempotencyKey, (OrderResponse) responseEntity.getBody());
+        Object result;
+        IdempotentResponse stored = null;
+        try {
+            result = joinPoint.proceed();
+            if (result instanceof ResponseEntity<?> responseEntity
+                    && responseEntity.getStatusCode().is2xxSuccessful()
+                    && responseEntity.getBody() != null) {
+                stored = new IdempotentResponse(responseEntity.getStatusCode().value(),
+                    objectMapper.writeValueAsBytes(responseEntity.getBody()));
             }
+        } catch (Throwable t) {
+            idempotencyService.release(idempotencyKey);
+            throw t;
         }
 
-        return result;
+        if (stored == null) {
+            idempotencyService.release(idempotencyKey);
+            return result;
+        }
+        idempotencyService.complete(idempotencyKey, stored);
+        // Send the stored bytes so the first response is identical to the replays and rendered only once
+        return ResponseEntity.status(stored.status())
+            .headers(((ResponseEntity<?>) result).getHeaders())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(stored.body());
+    }
+
+    private static void replay(IdempotentResponse response, HttpServletResponse servletResponse) throws IOException {
+        servletResponse.setStatus(response.status());
+        servletResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        servletResponse.setContentLength(response.body().length);
+        servletResponse.getOutputStream().write(response.body());
+        servletResponse.flushBuffer();
     }
 }
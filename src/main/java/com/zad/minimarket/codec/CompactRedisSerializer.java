@@ -0,0 +1,90 @@
+package com.zad.minimarket.codec;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Base for compact binary Redis value serializers.
+ * <p>
+ * Every payload starts with a 3 byte header: a magic byte that can never start a JSON
+ * document, the format version and a type id. Values without the magic byte are handed
+ * to the legacy reader, so entries written in the previous JSON format stay readable
+ * during a rolling deployment. So are binary payloads of a type the serializer replaced.
+ */
+public abstract class CompactRedisSerializer<T> implements RedisSerializer<T> {
+
+    static final int MAGIC = 0xC5;
+    static final int FORMAT_VERSION = 1;
+
+    private final RedisSerializer<?> legacyReader;
+
+    protected CompactRedisSerializer(RedisSerializer<?> legacyReader) {
+        this.legacyReader = legacyReader;
+    }
+
+    /**
+     * Type id written into the header
+     */
+    protected abstract int typeId();
+
+    protected abstract Class<T> type();
+
+    /**
+     * Whether a binary payload with this type id was written by a serializer this one replaced
+     */
+    protected boolean isLegacyType(int typeId) {
+        return false;
+    }
+
+    protected abstract void encode(T value, BinaryWriter writer);
+
+    protected abstract T decode(BinaryReader reader, int version);
+
+    @Override
+    public byte[] serialize(T value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        BinaryWriter writer = new BinaryWriter(64)
+            .writeByte(MAGIC)
+            .writeByte(FORMAT_VERSION)
+            .writeByte(typeId());
+        encode(value, writer);
+        return writer.toByteArray();
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if ((bytes[0] & 0xFF) != MAGIC || (bytes.length > 2 && isLegacyType(bytes[2] & 0xFF))) {
+            return readLegacy(bytes);
+        }
+        try {
+            BinaryReader reader = new BinaryReader(bytes, 1);
+            int version = reader.readByte();
+            int typeId = reader.readByte();
+            if (version > FORMAT_VERSION || typeId != typeId()) {
+                throw new SerializationException(
+                    "Unsupported binary payload version " + version + " type " + typeId + " for " + type().getSimpleName());
+            }
+            return decode(reader, version);
+        } catch (IllegalStateException | IllegalArgumentException | IndexOutOfBoundsException | ArithmeticException e) {
+            throw new SerializationException("Malformed binary payload for " + type().getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return type();
+    }
+
+    private T readLegacy(byte[] bytes) {
+        Object legacy = legacyReader.deserialize(bytes);
+        if (legacy != null && !type().isInstance(legacy)) {
+            throw new SerializationException("Legacy payload is not a " + type().getSimpleName());
+        }
+        return type().cast(legacy);
+    }
+}
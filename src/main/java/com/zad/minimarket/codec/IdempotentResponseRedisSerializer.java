@@ -0,0 +1,72 @@
+package com.zad.minimarket.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zad.minimarket.dto.IdempotentResponse;
+import com.zad.minimarket.dto.OrderResponse;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Binary layout (version 1): the status as a varint followed by the length-prefixed body.
+ * Order responses stored by earlier versions, in binary or as JSON, are read as the 201
+ * they were created with, rendered with the application object mapper.
+ */
+public class IdempotentResponseRedisSerializer extends CompactRedisSerializer<IdempotentResponse> {
+
+    static final int TYPE_ID = 3;
+
+    public IdempotentResponseRedisSerializer(RedisSerializer<OrderResponse> previousFormat, ObjectMapper objectMapper) {
+        super(new PreviousFormatReader(previousFormat, objectMapper));
+    }
+
+    @Override
+    protected int typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    protected Class<IdempotentResponse> type() {
+        return IdempotentResponse.class;
+    }
+
+    @Override
+    protected boolean isLegacyType(int typeId) {
+        return typeId == OrderResponseRedisSerializer.TYPE_ID;
+    }
+
+    @Override
+    protected void encode(IdempotentResponse value, BinaryWriter writer) {
+        writer.writeVarLong(value.status());
+        writer.writeVarLong(value.body().length).writeBytes(value.body());
+    }
+
+    @Override
+    protected IdempotentResponse decode(BinaryReader reader, int version) {
+        int status = Math.toIntExact(reader.readVarLong());
+        int length = Math.toIntExact(reader.readVarLong());
+        return new IdempotentResponse(status, reader.readBytes(length));
+    }
+
+    private record PreviousFormatReader(RedisSerializer<OrderResponse> previousFormat,
+                                        ObjectMapper objectMapper) implements RedisSerializer<IdempotentResponse> {
+
+        @Override
+        public byte[] serialize(IdempotentResponse value) {
+            throw new SerializationException("Previous idempotent response format is read-only");
+        }
+
+        @Override
+        public IdempotentResponse deserialize(byte[] bytes) {
+            OrderResponse order = previousFormat.deserialize(bytes);
+            if (order == null) {
+                return null;
+            }
+            try {
+                return new IdempotentResponse(201, objectMapper.writeValueAsBytes(order));
+            } catch (JsonProcessingException e) {
+                throw new SerializationException("Could not render stored order response", e);
+            }
+        }
+    }
+}
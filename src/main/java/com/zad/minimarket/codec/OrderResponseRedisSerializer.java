@@ -0,0 +1,164 @@
+package com.zad.minimarket.codec;
+
+import com.zad.minimarket.dto.ExecutionResponse;
+import com.zad.minimarket.dto.OrderResponse;
+import com.zad.minimarket.entity.OrderSide;
+import com.zad.minimarket.entity.OrderStatus;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary layout (version 1): a varint bitmask of present fields followed by the present
+ * fields in declaration order. Enums are stored by ordinal, so new constants must only be
+ * appended. Quantity is stored as scale plus unscaled value, timestamps as UTC epoch
+ * seconds plus nanos and the execution price as a zig-zag varint of fixed-point units.
+ */
+public class OrderResponseRedisSerializer extends CompactRedisSerializer<OrderResponse> {
+
+    static final int TYPE_ID = 2;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_SIDE = 1 << 1;
+    private static final int HAS_QUANTITY = 1 << 2;
+    private static final int HAS_STATUS = 1 << 3;
+    private static final int HAS_CREATED_AT = 1 << 4;
+    private static final int HAS_EXECUTION = 1 << 5;
+    private static final int HAS_EXECUTION_ID = 1 << 6;
+    private static final int HAS_EXECUTION_ORDER_ID = 1 << 7;
+    private static final int HAS_EXECUTED_AT = 1 << 8;
+
+    public OrderResponseRedisSerializer(RedisSerializer<?> legacyReader) {
+        super(legacyReader);
+    }
+
+    @Override
+    protected int typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    protected Class<OrderResponse> type() {
+        return OrderResponse.class;
+    }
+
+    @Override
+    protected void encode(OrderResponse value, BinaryWriter writer) {
+        ExecutionResponse execution = value.getExecution();
+        int flags = (value.getId() != null ? HAS_ID : 0)
+            | (value.getSide() != null ? HAS_SIDE : 0)
+            | (value.getQuantity() != null ? HAS_QUANTITY : 0)
+            | (value.getStatus() != null ? HAS_STATUS : 0)
+            | (value.getCreatedAt() != null ? HAS_CREATED_AT : 0);
+        if (execution != null) {
+            flags |= HAS_EXECUTION
+                | (execution.getId() != null ? HAS_EXECUTION_ID : 0)
+                | (execution.getOrderId() != null ? HAS_EXECUTION_ORDER_ID : 0)
+                | (execution.getExecutedAt() != null ? HAS_EXECUTED_AT : 0);
+        }
+        writer.writeVarLong(flags);
+
+        if (value.getId() != null) {
+            writer.writeZigZag(value.getId());
+        }
+        writer.writeNullableString(value.getAccountId());
+        writer.writeNullableString(value.getSymbol());
+        if (value.getSide() != null) {
+            writer.writeByte(value.getSide().ordinal());
+        }
+        if (value.getQuantity() != null) {
+            writeDecimal(value.getQuantity(), writer);
+        }
+        if (value.getStatus() != null) {
+            writer.writeByte(value.getStatus().ordinal());
+        }
+        if (value.getCreatedAt() != null) {
+            writeTimestamp(value.getCreatedAt(), writer);
+        }
+        if (execution != null) {
+            if (execution.getId() != null) {
+                writer.writeZigZag(execution.getId());
+            }
+            if (execution.getOrderId() != null) {
+                writer.writeZigZag(execution.getOrderId());
+            }
+            writer.writeZigZag(execution.getPrice());
+            if (execution.getExecutedAt() != null) {
+                writeTimestamp(execution.getExecutedAt(), writer);
+            }
+        }
+    }
+
+    @Override
+    protected OrderResponse decode(BinaryReader reader, int version) {
+        int flags = Math.toIntExact(reader.readVarLong());
+
+        OrderResponse order = new OrderResponse();
+        if ((flags & HAS_ID) != 0) {
+            order.setId(reader.readZigZag());
+        }
+        order.setAccountId(reader.readNullableString());
+        order.setSymbol(reader.readNullableString());
+        if ((flags & HAS_SIDE) != 0) {
+            order.setSide(OrderSide.values()[reader.readByte()]);
+        }
+        if ((flags & HAS_QUANTITY) != 0) {
+            order.setQuantity(readDecimal(reader));
+        }
+        if ((flags & HAS_STATUS) != 0) {
+            order.setStatus(OrderStatus.values()[reader.readByte()]);
+        }
+        if ((flags & HAS_CREATED_AT) != 0) {
+            order.setCreatedAt(readTimestamp(reader));
+        }
+        if ((flags & HAS_EXECUTION) != 0) {
+            ExecutionResponse execution = new ExecutionResponse();
+            if ((flags & HAS_EXECUTION_ID) != 0) {
+                execution.setId(reader.readZigZag());
+            }
+            if ((flags & HAS_EXECUTION_ORDER_ID) != 0) {
+                execution.setOrderId(reader.readZigZag());
+            }
+            execution.setPrice(reader.readZigZag());
+            if ((flags & HAS_EXECUTED_AT) != 0) {
+                execution.setExecutedAt(readTimestamp(reader));
+            }
+            order.setExecution(execution);
+        }
+        return order;
+    }
+
+    private static void writeDecimal(BigDecimal value, BinaryWriter writer) {
+        writer.writeZigZag(value.scale());
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64) {
+            writer.writeByte(0).writeZigZag(unscaled.longValue());
+        } else {
+            byte[] bytes = unscaled.toByteArray();
+            writer.writeByte(1).writeVarLong(bytes.length).writeBytes(bytes);
+        }
+    }
+
+    private static BigDecimal readDecimal(BinaryReader reader) {
+        int scale = Math.toIntExact(reader.readZigZag());
+        if (reader.readByte() == 0) {
+            return BigDecimal.valueOf(reader.readZigZag(), scale);
+        }
+        int length = Math.toIntExact(reader.readVarLong());
+        return new BigDecimal(new BigInteger(reader.readBytes(length)), scale);
+    }
+
+    private static void writeTimestamp(LocalDateTime value, BinaryWriter writer) {
+        writer.writeZigZag(value.toEpochSecond(ZoneOffset.UTC));
+        writer.writeVarLong(value.getNano());
+    }
+
+    private static LocalDateTime readTimestamp(BinaryReader reader) {
+        long epochSecond = reader.readZigZag();
+        int nanos = Math.toIntExact(reader.readVarLong());
+        return LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,113 @@
+package com.zad.minimarket.codec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Price ticks loaded from a file written by {@link PriceRecordingWriter}, held in primitive arrays
+ * in recording order
+ */
+public class PriceRecording {
+
+    private final String[] symbols;
+    private final long[] timestamps;
+    private final int[] symbolIds;
+    private final long[] prices;
+
+    private PriceRecording(String[] symbols, long[] timestamps, int[] symbolIds, long[] prices) {
+        this.symbols = symbols;
+        this.timestamps = timestamps;
+        this.symbolIds = symbolIds;
+        this.prices = prices;
+    }
+
+    public static PriceRecording read(Path path) throws IOException {
+        return read(Files.readAllBytes(path));
+    }
+
+    public static PriceRecording read(byte[] bytes) {
+        if (bytes.length < PriceRecordingWriter.MAGIC.length + 1
+                || !Arrays.equals(Arrays.copyOf(bytes, PriceRecordingWriter.MAGIC.length), PriceRecordingWriter.MAGIC)) {
+            throw new IllegalArgumentException("Not a price recording");
+        }
+        BinaryReader reader = new BinaryReader(bytes, PriceRecordingWriter.MAGIC.length);
+        int version = reader.readByte();
+        if (version > PriceRecordingWriter.FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported price recording version " + version);
+        }
+
+        List<String> symbols = new ArrayList<>();
+        long[] lastPrices = new long[64];
+        long[] timestamps = new long[1024];
+        int[] symbolIds = new int[1024];
+        long[] prices = new long[1024];
+        int count = 0;
+        long timestamp = reader.readZigZag();
+        while (reader.hasRemaining()) {
+            try {
+                long tickTimestamp = timestamp + reader.readVarLong();
+                int id = Math.toIntExact(reader.readVarLong());
+                String newSymbol = null;
+                if (id == symbols.size()) {
+                    newSymbol = reader.readString();
+                } else if (id > symbols.size()) {
+                    throw new IllegalArgumentException("Corrupt price recording at tick " + count);
+                }
+                long price = (newSymbol != null ? 0 : lastPrices[id]) + reader.readZigZag();
+
+                // Only a fully read tick is kept, with its symbol when it introduced one
+                if (newSymbol != null) {
+                    symbols.add(newSymbol);
+                    if (id == lastPrices.length) {
+                        lastPrices = Arrays.copyOf(lastPrices, id * 2);
+                    }
+                }
+                lastPrices[id] = price;
+                timestamp = tickTimestamp;
+
+                if (count == timestamps.length) {
+                    timestamps = Arrays.copyOf(timestamps, count * 2);
+                    symbolIds = Arrays.copyOf(symbolIds, count * 2);
+                    prices = Arrays.copyOf(prices, count * 2);
+                }
+                timestamps[count] = timestamp;
+                symbolIds[count] = id;
+                prices[count] = lastPrices[id];
+                count++;
+            } catch (IllegalStateException e) {
+                // A recording cut off by a crash ends with a partial tick, which is dropped
+                break;
+            }
+        }
+        return new PriceRecording(symbols.toArray(String[]::new), Arrays.copyOf(timestamps, count),
+            Arrays.copyOf(symbolIds, count), Arrays.copyOf(prices, count));
+    }
+
+    public int size() {
+        return timestamps.length;
+    }
+
+    public int symbolCount() {
+        return symbols.length;
+    }
+
+    public String symbol(int symbolId) {
+        return symbols[symbolId];
+    }
+
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    public int symbolId(int index) {
+        return symbolIds[index];
+    }
+
+    public long price(int index) {
+        return prices[index];
+    }
+}
@@ -0,0 +1,68 @@
+package com.zad.minimarket.codec;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes price ticks in the compact recording format read by {@link PriceRecording}.
+ * <p>
+ * Layout: the magic bytes {@code MMPR}, a format version byte and the start time as a
+ * zig-zag varint of epoch millis, followed by one record per tick: the millis since the
+ * previous tick (varint), the symbol id (varint, a new id is followed by the symbol name)
+ * and the price change since the symbol's previous tick (zig-zag varint of fixed-point units).
+ */
+public class PriceRecordingWriter implements AutoCloseable {
+
+    static final byte[] MAGIC = {'M', 'M', 'P', 'R'};
+    static final int FORMAT_VERSION = 1;
+
+    private final OutputStream out;
+    private final BinaryWriter record = new BinaryWriter(64);
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private long[] lastPrices = new long[64];
+    private long lastTimestamp;
+
+    public PriceRecordingWriter(OutputStream out, long startEpochMillis) throws IOException {
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+        this.lastTimestamp = startEpochMillis;
+        record.writeBytes(MAGIC).writeByte(FORMAT_VERSION).writeZigZag(startEpochMillis);
+        flushRecord();
+    }
+
+    public synchronized void write(String symbol, long timestampMillis, long price) throws IOException {
+        Integer id = symbolIds.get(symbol);
+        record.writeVarLong(Math.max(0, timestampMillis - lastTimestamp));
+        if (id == null) {
+            id = symbolIds.size();
+            symbolIds.put(symbol, id);
+            if (id == lastPrices.length) {
+                lastPrices = Arrays.copyOf(lastPrices, id * 2);
+            }
+            record.writeVarLong(id).writeString(symbol);
+        } else {
+            record.writeVarLong(id);
+        }
+        record.writeZigZag(price - lastPrices[id]);
+        lastPrices[id] = price;
+        lastTimestamp = Math.max(lastTimestamp, timestampMillis);
+        flushRecord();
+    }
+
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    private void flushRecord() throws IOException {
+        record.writeTo(out);
+        record.reset();
+    }
+}
@@ -0,0 +1,41 @@
+package com.zad.minimarket.codec;
+
+import com.zad.minimarket.dto.PriceResponse;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Binary layout (version 1): symbol as a nullable length-prefixed string, price as a zig-zag varint
+ * of fixed-point units
+ */
+public class PriceResponseRedisSerializer extends CompactRedisSerializer<PriceResponse> {
+
+    static final int TYPE_ID = 1;
+
+    public PriceResponseRedisSerializer(RedisSerializer<?> legacyReader) {
+        super(legacyReader);
+    }
+
+    @Override
+    protected int typeId() {
+        return TYPE_ID;
+    }
+
+    @Override
+    protected Class<PriceResponse> type() {
+        return PriceResponse.class;
+    }
+
+    @Override
+    protected void encode(PriceResponse value, BinaryWriter writer) {
+        writer.writeNullableString(value.getSymbol());
+        writer.writeZigZag(value.getPrice());
+    }
+
+    @Override
+    protected PriceResponse decode(BinaryReader reader, int version) {
+        PriceResponse price = new PriceResponse();
+        price.setSymbol(reader.readNullableString());
+        price.setPrice(reader.readZigZag());
+        return price;
+    }
+}
@@ -0,0 +1,19 @@
+package com.zad.minimarket.config;
+
+/**
+ * Strategy applied when the price feed circuit breaker rejects a call
+ */
+public enum PriceFeedFallback {
+    /**
+     * Serve the last price successfully fetched for the symbol
+     */
+    CACHED,
+    /**
+     * Serve a generated mock price
+     */
+    MOCK,
+    /**
+     * Fail immediately with 503 Service Unavailable
+     */
+    FAIL
+}
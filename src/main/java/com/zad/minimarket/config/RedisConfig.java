@@ -1,14 +1,31 @@
 package com.zad.minimarket.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zad.minimarket.codec.IdempotentResponseRedisSerializer;
+import com.zad.minimarket.codec.OrderResponseRedisSerializer;
+import com.zad.minimarket.codec.PriceResponseRedisSerializer;
+import com.zad.minimarket.dto.IdempotentResponse;
+import com.zad.minimarket.dto.OrderResponse;
+import com.zad.minimarket.dto.PriceResponse;
+import com.zad.minimarket.service.ClusterPriceTable;
+import com.zad.minimarket.service.RedisAvailabilityService;
+import com.zad.minimarket.service.RedisIdempotencyStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -34,6 +51,79 @@ public class RedisConfig {
         return template;
     }
     
+    /**
+     * Template for cached prices using the compact binary codec.
+     * Entries written by the previous JSON serializer are still readable.
+     */
+    @Bean
+    public RedisTemplate<String, PriceResponse> priceRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, PriceResponse> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new PriceResponseRedisSerializer(new GenericJackson2JsonRedisSerializer()));
+        template.afterPropertiesSet();
+        return template;
+    }
+    
+    /**
+     * Template for cached orders in a final status, using the compact binary codec
+     */
+    @Bean
+    public RedisTemplate<String, OrderResponse> orderRedisTemplate(RedisConnectionFactory connectionFactory,
+                                                                   ObjectMapper objectMapper) {
+        RedisTemplate<String, OrderResponse> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new OrderResponseRedisSerializer(
+                new Jackson2JsonRedisSerializer<>(objectMapper, OrderResponse.class)));
+        template.afterPropertiesSet();
+        return template;
+    }
+    
+    /**
+     * Template for idempotent responses, stored as status plus the rendered JSON body.
+     * Order responses written in the previous binary or JSON string formats are still readable.
+     */
+    @Bean
+    public RedisTemplate<String, IdempotentResponse> idempotencyRedisTemplate(RedisConnectionFactory connectionFactory,
+                                                                              ObjectMapper objectMapper) {
+        RedisTemplate<String, IdempotentResponse> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new IdempotentResponseRedisSerializer(
+                new OrderResponseRedisSerializer(new Jackson2JsonRedisSerializer<>(objectMapper, OrderResponse.class)),
+                objectMapper));
+        template.afterPropertiesSet();
+        return template;
+    }
+    
+    /**
+     * Delivers idempotency completions and, in cluster mode, price broadcasts from the leader.
+     * Started once the application is ready so an unreachable Redis does not block startup.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       ObjectProvider<RedisIdempotencyStore> idempotencyStore,
+                                                                       ObjectProvider<ClusterPriceTable> clusterPriceTable) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        idempotencyStore.ifAvailable(store -> container.addMessageListener(store, new ChannelTopic(RedisIdempotencyStore.COMPLETION_CHANNEL)));
+        clusterPriceTable.ifAvailable(table -> container.addMessageListener(table, new ChannelTopic(ClusterPriceTable.CHANNEL)));
+        return container;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRedisMessageListenerContainer(ApplicationReadyEvent event) {
+        ApplicationContext context = event.getApplicationContext();
+        context.getBean(RedisAvailabilityService.class)
+                .startWhenAvailable(context.getBean(RedisMessageListenerContainer.class));
+    }
+    
     @Bean
     public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
@@ -0,0 +1,86 @@
+package com.zad.minimarket.config;
+
+import com.zad.minimarket.exception.PriceFeedException;
+import com.zad.minimarket.util.HedgedExecutor;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+public class ResilienceConfig {
+
+    public static final String PRICE_FEED = "priceFeed";
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(
+            @Value("${app.price-feed.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${app.price-feed.circuit-breaker.slow-call-rate-threshold:50}") float slowCallRateThreshold,
+            @Value("${app.price-feed.circuit-breaker.slow-call-duration-threshold:2000}") long slowCallDurationThreshold,
+            @Value("${app.price-feed.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${app.price-feed.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+            @Value("${app.price-feed.circuit-breaker.wait-duration-in-open-state:10000}") long waitDurationInOpenState,
+            @Value("${app.price-feed.circuit-breaker.permitted-calls-in-half-open-state:3}") int permittedCallsInHalfOpenState) {
+
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationThreshold))
+                .waitDurationInOpenState(Duration.ofMillis(waitDurationInOpenState))
+                .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .recordExceptions(HttpServerErrorException.class, ResourceAccessException.class, PriceFeedException.class)
+                .build();
+
+        return CircuitBreakerRegistry.of(config);
+    }
+
+    /**
+     * Circuit breaker guarding calls to the external price feed.
+     * State, call outcomes and transitions are exported to the meter registry.
+     */
+    @Bean
+    public CircuitBreaker priceFeedCircuitBreaker(CircuitBreakerRegistry registry, MeterRegistry meterRegistry) {
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+
+        CircuitBreaker circuitBreaker = registry.circuitBreaker(PRICE_FEED);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            log.warn("Price feed circuit breaker transitioned: {}", event.getStateTransition());
+            Counter.builder("price.feed.circuit.transitions")
+                    .description("Price feed circuit breaker state transitions")
+                    .tag("from", event.getStateTransition().getFromState().name())
+                    .tag("to", event.getStateTransition().getToState().name())
+                    .register(meterRegistry)
+                    .increment();
+        });
+        return circuitBreaker;
+    }
+
+    /**
+     * Hedges price feed calls that are slower than a percentile of recent feed latency
+     */
+    @Bean
+    public HedgedExecutor priceFeedHedgedExecutor(
+            @Value("${app.price-feed.hedging.enabled:true}") boolean enabled,
+            @Value("${app.price-feed.hedging.percentile:95}") double percentile,
+            @Value("${app.price-feed.hedging.min-delay:20}") long minDelay,
+            @Value("${app.price-feed.hedging.budget-percent:5}") int budgetPercent,
+            @Value("${app.price-feed.hedging.window-size:256}") int windowSize,
+            MeterRegistry meterRegistry) {
+        return new HedgedExecutor("price.feed", enabled, percentile, minDelay, budgetPercent, windowSize, meterRegistry);
+    }
+}
@@ -1,10 +1,15 @@
 package com.zad.minimarket.controller;
 
+import com.zad.minimarket.exception.ExportAbortedException;
+import com.zad.minimarket.exception.IdempotencyConflictException;
+import com.zad.minimarket.exception.IdempotencyStoreFullException;
 import com.zad.minimarket.exception.OrderNotFoundException;
 import com.zad.minimarket.exception.PriceFeedException;
+import com.zad.minimarket.exception.PriceFeedUnavailableException;
 import com.zad.minimarket.exception.RateLimitExceededException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -49,6 +54,36 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(error);
     }
     
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyConflictException(IdempotencyConflictException ex) {
+        logger.warn("Idempotency conflict: {}", ex.getMessage());
+        
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.CONFLICT.value(),
+            "Idempotency Conflict",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    @ExceptionHandler(IdempotencyStoreFullException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyStoreFullException(IdempotencyStoreFullException ex) {
+        logger.warn("Idempotency store full: {}", ex.getMessage());
+        
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            "Idempotency Store Full",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (ex.getRetryAfterMillis() + 999) / 1000)))
+            .body(error);
+    }
+    
     @ExceptionHandler(PriceFeedException.class)
     public ResponseEntity<ErrorResponse> handlePriceFeedException(PriceFeedException ex) {
         logger.error("Price feed error: {}", ex.getMessage());
@@ -63,6 +98,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(error);
     }
     
+    @ExceptionHandler(PriceFeedUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handlePriceFeedUnavailableException(PriceFeedUnavailableException ex) {
+        logger.warn("Price feed unavailable: {}", ex.getMessage());
+        
+        ErrorResponse error = new ErrorResponse(
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            "Price Feed Unavailable",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+    
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ValidationErrorResponse> handleValidationException(MethodArgumentNotValidException ex) {
         logger.warn("Validation error: {}", ex.getMessage());
@@ -99,6 +148,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     
+    /**
+     * Part of the export has already been sent, so an error body would only corrupt it.
+     * Rethrowing leaves the exception to the servlet container, which closes the connection
+     * and the client sees a truncated transfer rather than a complete file.
+     */
+    @ExceptionHandler(ExportAbortedException.class)
+    public void handleExportAbortedException(ExportAbortedException ex) {
+        throw ex;
+    }
+    
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
         logger.error("Unexpected error: {}", ex.getMessage(), ex);
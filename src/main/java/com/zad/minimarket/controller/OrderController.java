@@ -2,7 +2,12 @@ package com.zad.minimarket.controller;
 
 import com.zad.minimarket.annotation.Idempotent;
 import com.zad.minimarket.dto.CreateOrderRequest;
+import com.zad.minimarket.dto.CursorPage;
 import com.zad.minimarket.dto.OrderResponse;
+import com.zad.minimarket.entity.OrderStatus;
+import com.zad.minimarket.exception.ExportAbortedException;
+import com.zad.minimarket.service.OrderCacheService;
+import com.zad.minimarket.service.OrderExportService;
 import com.zad.minimarket.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,16 +16,24 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springdoc.core.annotations.ParameterObject;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/orders")
 @Tag(name = "Orders", description = "Order management API")
@@ -29,9 +42,11 @@ public class OrderController {
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
     
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
     
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderExportService orderExportService) {
         this.orderService = orderService;
+        this.orderExportService = orderExportService;
     }
     
     @PostMapping
@@ -89,6 +104,10 @@ public class OrderController {
             description = "Order found",
             content = @Content(schema = @Schema(implementation = OrderResponse.class))
         ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "Order unchanged since the ETag in If-None-Match"
+        ),
         @ApiResponse(
             responseCode = "404",
             description = "Order not found"
@@ -100,8 +119,11 @@ public class OrderController {
         
         logger.debug("Getting order by ID: {}", id);
         
-        OrderResponse response = orderService.getOrderById(id);
-        return ResponseEntity.ok(response);
+        OrderCacheService.TaggedOrder order = orderService.getTaggedOrderById(id);
+        // A matching If-None-Match turns this into a 304 without a body
+        return ResponseEntity.ok()
+            .eTag(order.etag())
+            .body(order.order());
     }
     
     @GetMapping
@@ -120,24 +142,149 @@ public class OrderController {
             description = "Invalid request parameters"
         )
     })
-    public ResponseEntity<Page<OrderResponse>> getOrders(
+    public ResponseEntity<Slice<OrderResponse>> getOrders(
         @Parameter(description = "Account ID to filter orders")
         @RequestParam(required = false) String accountId,
 
+        @Parameter(description = "Include totalElements and totalPages; without them no total is read")
+        @RequestParam(defaultValue = "true") boolean withTotal,
+
         @ParameterObject Pageable pageable) {
 
-        logger.debug("Getting orders for accountId: {}, pageable: {}", accountId, pageable);
+        logger.debug("Getting orders for accountId: {}, withTotal: {}, pageable: {}", accountId, withTotal, pageable);
 
-        Page<OrderResponse> orderPage;
+        Slice<OrderResponse> orderPage;
 
         if (accountId != null && !accountId.trim().isEmpty()) {
-            orderPage = orderService.getOrdersByAccount(accountId, pageable);
+            orderPage = withTotal
+                ? orderService.getOrdersByAccount(accountId, pageable)
+                : orderService.getOrderSliceByAccount(accountId, pageable);
         } else {
-            orderPage = orderService.getAllOrders(pageable);
+            orderPage = withTotal
+                ? orderService.getAllOrders(pageable)
+                : orderService.getAllOrdersSlice(pageable);
         }
 
         return ResponseEntity.ok(orderPage);
     }
 
-}
+    @GetMapping("/counts")
+    @Operation(
+        summary = "Get order counts",
+        description = "Retrieves the number of orders in each status for a specific account or for all accounts"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Order counts retrieved successfully"
+    )
+    public ResponseEntity<Map<OrderStatus, Long>> getOrderCounts(
+        @Parameter(description = "Account ID to count orders for")
+        @RequestParam(required = false) String accountId) {
+
+        logger.debug("Getting order counts for accountId: {}", accountId);
+
+        String account = accountId != null && !accountId.trim().isEmpty() ? accountId : null;
+        return ResponseEntity.ok(orderService.getOrderCounts(account));
+    }
+
+    @GetMapping("/scroll")
+    @Operation(
+        summary = "Scroll orders",
+        description = "Retrieves orders newest first, for a specific account or all orders, using keyset pagination. "
+            + "Pass the nextCursor of a page to get the following one; it is null on the last page"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Orders retrieved successfully"
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or page size"
+        )
+    })
+    public ResponseEntity<CursorPage<OrderResponse>> scrollOrders(
+        @Parameter(description = "Account ID to filter orders")
+        @RequestParam(required = false) String accountId,
+
+        @Parameter(description = "nextCursor of the previous page")
+        @RequestParam(required = false) String cursor,
+
+        @Parameter(description = "Page size, at most " + OrderService.MAX_CURSOR_PAGE_SIZE)
+        @RequestParam(defaultValue = "20") int size) {
+
+        logger.debug("Scrolling orders for accountId: {}, cursor: {}, size: {}", accountId, cursor, size);
+
+        String account = accountId != null && !accountId.trim().isEmpty() ? accountId : null;
+        String position = cursor != null && !cursor.isEmpty() ? cursor : null;
+        return ResponseEntity.ok(orderService.getOrdersAfter(account, position, size));
+    }
 
+    @GetMapping("/export")
+    @Operation(
+        summary = "Export orders",
+        description = "Streams an account's orders created in [from, to), oldest first, as NDJSON or CSV. "
+            + "Rows are written as they are read from the database, so exports of any size use constant memory"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Orders exported successfully"
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid request parameters"
+        )
+    })
+    public void exportOrders(
+        @Parameter(description = "Account ID to export orders for", required = true)
+        @RequestParam String accountId,
+
+        @Parameter(description = "Earliest creation time, inclusive")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+        @Parameter(description = "Latest creation time, exclusive")
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+
+        @Parameter(description = "ndjson or csv")
+        @RequestParam(defaultValue = "ndjson") String format,
+
+        HttpServletResponse response) throws IOException {
+
+        logger.debug("Exporting orders for accountId: {}, from: {}, to: {}, format: {}", accountId, from, to, format);
+
+        if (accountId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Account ID is required");
+        }
+        OrderExportService.Format exportFormat = parseExportFormat(format);
+
+        // Written straight to the servlet stream so nothing is buffered beyond the response buffer
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"orders." + exportFormat.name().toLowerCase(Locale.ROOT) + "\"");
+        long rows;
+        try {
+            rows = orderExportService.export(accountId, from, to, exportFormat, response.getOutputStream());
+        } catch (IOException | RuntimeException e) {
+            if (!response.isCommitted()) {
+                // Nothing sent yet, so drop the export headers and answer with a normal error
+                response.reset();
+                throw e;
+            }
+            logger.error("Export for accountId: {} failed after the response was committed, aborting it: {}",
+                accountId, e.getMessage(), e);
+            throw new ExportAbortedException("Export for accountId " + accountId + " aborted", e);
+        }
+        logger.debug("Exported {} orders for accountId: {}", rows, accountId);
+    }
+
+    private static OrderExportService.Format parseExportFormat(String format) {
+        try {
+            return OrderExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+    }
+
+}
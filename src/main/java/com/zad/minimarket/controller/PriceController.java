@@ -0,0 +1,91 @@
+package com.zad.minimarket.controller;
+
+import com.zad.minimarket.dto.PriceBarResponse;
+import com.zad.minimarket.service.PriceHistoryService;
+import com.zad.minimarket.service.PriceStreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/prices")
+@Tag(name = "Prices", description = "Price history and streaming API")
+public class PriceController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PriceController.class);
+    
+    private final PriceHistoryService priceHistoryService;
+    private final PriceStreamService priceStreamService;
+    
+    public PriceController(PriceHistoryService priceHistoryService, PriceStreamService priceStreamService) {
+        this.priceHistoryService = priceHistoryService;
+        this.priceStreamService = priceStreamService;
+    }
+    
+    @GetMapping("/{symbol}/bars")
+    @Operation(
+        summary = "Get price bars",
+        description = "Aggregates recently fetched price ticks for a symbol into OHLC bars with tick counts"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Bars computed successfully, oldest first",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = PriceBarResponse.class)))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid interval"
+        )
+    })
+    public ResponseEntity<List<PriceBarResponse>> getBars(
+            @Parameter(description = "Symbol", required = true)
+            @PathVariable String symbol,
+            
+            @Parameter(description = "Bar interval such as 30s, 1m or 1h")
+            @RequestParam(defaultValue = "1m") String interval) {
+        
+        logger.debug("Getting {} bars for symbol: {}", interval, symbol);
+        
+        return ResponseEntity.ok(priceHistoryService.getBars(symbol, DurationStyle.detectAndParse(interval)));
+    }
+    
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+        summary = "Stream prices",
+        description = "Server-Sent Events stream of `price` events for the requested symbols, starting with their last known prices. "
+            + "Prices are pushed as the service fetches them; a slow client only receives the latest price per symbol"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Stream opened"
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "No symbols or too many symbols requested"
+        )
+    })
+    public SseEmitter streamPrices(
+            @Parameter(description = "Comma-separated symbols", required = true)
+            @RequestParam List<String> symbols) {
+        
+        logger.debug("Opening price stream for symbols: {}", symbols);
+        
+        return priceStreamService.subscribe(symbols);
+    }
+}
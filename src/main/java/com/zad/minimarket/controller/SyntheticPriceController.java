@@ -0,0 +1,43 @@
+package com.zad.minimarket.controller;
+
+import com.zad.minimarket.dto.PriceResponse;
+import com.zad.minimarket.service.SyntheticMarketDataGenerator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Serves synthetic prices with the same contract as the external price feed,
+ * so another instance or a load generator can use this one as its feed
+ */
+@RestController
+@RequestMapping("/synthetic")
+@ConditionalOnProperty(name = "app.synthetic-feed.enabled", havingValue = "true")
+@Tag(name = "Synthetic Feed", description = "Synthetic market data for local load testing")
+public class SyntheticPriceController {
+    
+    private final SyntheticMarketDataGenerator generator;
+    
+    public SyntheticPriceController(SyntheticMarketDataGenerator generator) {
+        this.generator = generator;
+    }
+    
+    @GetMapping("/price")
+    @Operation(summary = "Get synthetic price", description = "Returns the current synthetic price for a symbol")
+    public ResponseEntity<PriceResponse> getPrice(
+            @Parameter(description = "Symbol", required = true)
+            @RequestParam String symbol) {
+        return ResponseEntity.ok(generator.getPrice(symbol));
+    }
+    
+    @GetMapping("/symbols")
+    @Operation(summary = "Get synthetic universe", description = "Lists the symbols of the synthetic universe")
+    public ResponseEntity<List<String>> getSymbols() {
+        return ResponseEntity.ok(generator.getUniverse());
+    }
+}
@@ -0,0 +1,9 @@
+package com.zad.minimarket.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset listing. {@code nextCursor} fetches the following page and is null on the last one.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {
+}
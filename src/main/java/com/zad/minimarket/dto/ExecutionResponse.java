@@ -1,8 +1,11 @@
 package com.zad.minimarket.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.zad.minimarket.util.FixedPoint;
+import io.swagger.v3.oas.annotations.media.Schema;
 import java.io.Serializable;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import lombok.Getter;
 import lombok.Setter;
@@ -13,7 +16,14 @@ public class ExecutionResponse implements Serializable {
 
     private Long id;
     private Long orderId;
-    private BigDecimal price;
+
+    /**
+     * Price in fixed-point units, see {@link FixedPoint}
+     */
+    @Schema(type = "number", example = "210.550000")
+    @JsonSerialize(using = FixedPoint.Serializer.class)
+    @JsonDeserialize(using = FixedPoint.Deserializer.class)
+    private long price;
 
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime executedAt;
@@ -0,0 +1,8 @@
+package com.zad.minimarket.dto;
+
+/**
+ * Response stored under an idempotency key: the status and the exact JSON body sent to the
+ * first request, replayed byte for byte to its duplicates
+ */
+public record IdempotentResponse(int status, byte[] body) {
+}
@@ -0,0 +1,55 @@
+package com.zad.minimarket.dto;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position after the last order of a listing page, in {@code (created_at, id)} order.
+ * Clients see it only as an opaque URL-safe token.
+ */
+public record OrderCursor(LocalDateTime createdAt, long id) {
+
+    private static final int TOKEN_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    public static OrderCursor of(OrderExecutionProjection projection) {
+        return new OrderCursor(projection.getCreatedAt(), projection.getOrderId());
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}
+     */
+    public static OrderCursor decode(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        if (bytes.length != TOKEN_BYTES) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long epochSecond = buffer.getLong();
+        int nanos = buffer.getInt();
+        long id = buffer.getLong();
+        if (nanos < 0 || nanos > 999_999_999) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        try {
+            return new OrderCursor(LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC), id);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES)
+            .putLong(createdAt.toEpochSecond(ZoneOffset.UTC))
+            .putInt(createdAt.getNano())
+            .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+}
@@ -0,0 +1,46 @@
+package com.zad.minimarket.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.zad.minimarket.util.FixedPoint;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * OHLC bar aggregated from recorded price ticks. Prices are fixed-point units, see {@link FixedPoint}.
+ */
+@Getter
+@Setter
+public class PriceBarResponse implements Serializable {
+
+    private String symbol;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime start;
+
+    @Schema(type = "number", example = "210.550000")
+    @JsonSerialize(using = FixedPoint.Serializer.class)
+    @JsonDeserialize(using = FixedPoint.Deserializer.class)
+    private long open;
+
+    @Schema(type = "number", example = "211.100000")
+    @JsonSerialize(using = FixedPoint.Serializer.class)
+    @JsonDeserialize(using = FixedPoint.Deserializer.class)
+    private long high;
+
+    @Schema(type = "number", example = "210.200000")
+    @JsonSerialize(using = FixedPoint.Serializer.class)
+    @JsonDeserialize(using = FixedPoint.Deserializer.class)
+    private long low;
+
+    @Schema(type = "number", example = "210.900000")
+    @JsonSerialize(using = FixedPoint.Serializer.class)
+    @JsonDeserialize(using = FixedPoint.Deserializer.class)
+    private long close;
+
+    private int tickCount;
+}
@@ -1,7 +1,9 @@
 package com.zad.minimarket.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.zad.minimarket.util.FixedPoint;
 import java.io.Serializable;
-import java.math.BigDecimal;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,6 +13,11 @@ public class PriceResponse implements Serializable {
 
     private String symbol;
 
-    private BigDecimal price;
+    /**
+     * Price in fixed-point units, see {@link FixedPoint}
+     */
+    @JsonSerialize(using = FixedPoint.Serializer.class)
+    @JsonDeserialize(using = FixedPoint.Deserializer.class)
+    private long price;
 }
 
@@ -3,7 +3,6 @@ package com.zad.minimarket.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import lombok.Getter;
 import lombok.Setter;
@@ -21,10 +20,13 @@ public class Execution {
     @NotNull
     private Long orderId;
 
-    @NotNull
+    /**
+     * Execution price in fixed-point units, see {@link com.zad.minimarket.util.FixedPoint}
+     */
     @Positive
+    @Convert(converter = FixedPointConverter.class)
     @Column(nullable = false, precision = 18, scale = 6)
-    private BigDecimal price;
+    private long price;
 
     @NotNull
     @Column(name = "executed_at", nullable = false, updatable = false)
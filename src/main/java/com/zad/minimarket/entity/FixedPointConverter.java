@@ -0,0 +1,24 @@
+package com.zad.minimarket.entity;
+
+import com.zad.minimarket.util.FixedPoint;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Maps fixed-point {@code long} attributes to {@code numeric(18, 6)} columns
+ */
+@Converter
+public class FixedPointConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long attribute) {
+        return attribute != null ? FixedPoint.toBigDecimal(attribute) : null;
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal dbData) {
+        return dbData != null ? FixedPoint.fromBigDecimal(dbData) : null;
+    }
+}
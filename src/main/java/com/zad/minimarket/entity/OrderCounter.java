@@ -0,0 +1,48 @@
+package com.zad.minimarket.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Number of orders in one status, for one account or, with an empty account ID, for all accounts.
+ * All-account counts are spread over stripes so concurrent commits rarely update the same row.
+ */
+@Entity
+@Table(name = "order_counters")
+@IdClass(OrderCounter.Key.class)
+@Getter
+@Setter
+public class OrderCounter {
+
+    @Id
+    @Column(name = "account_id", nullable = false)
+    private String accountId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @Id
+    @Column(nullable = false)
+    private int stripe;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String accountId;
+        private OrderStatus status;
+        private int stripe;
+    }
+}
@@ -0,0 +1,8 @@
+package com.zad.minimarket.exception;
+
+public class ExportAbortedException extends RuntimeException {
+
+    public ExportAbortedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
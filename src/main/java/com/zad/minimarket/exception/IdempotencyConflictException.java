@@ -0,0 +1,12 @@
+package com.zad.minimarket.exception;
+
+public class IdempotencyConflictException extends RuntimeException {
+    
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+    
+    public IdempotencyConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
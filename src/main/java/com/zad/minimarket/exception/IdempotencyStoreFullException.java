@@ -0,0 +1,15 @@
+package com.zad.minimarket.exception;
+
+public class IdempotencyStoreFullException extends RuntimeException {
+
+    private final long retryAfterMillis;
+
+    public IdempotencyStoreFullException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,12 @@
+package com.zad.minimarket.exception;
+
+public class PriceFeedUnavailableException extends PriceFeedException {
+    
+    public PriceFeedUnavailableException(String message) {
+        super(message);
+    }
+    
+    public PriceFeedUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,219 @@
+package com.zad.minimarket.filter;
+
+import com.zad.minimarket.service.RateLimitingService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Applies the order rate limits to order creation before the request reaches Spring MVC.
+ * <p>
+ * Request bodies of up to {@code max-peek-bytes} are byte scanned for the {@code accountId} and
+ * {@code symbol} fields; the {@code account-header}, when present, names the account instead.
+ * Rejected requests get a pre-serialized 429 with {@code Retry-After}, without body parsing,
+ * validation, idempotency or exception handling. Accepted requests are marked as charged so the
+ * service does not charge them again; requests whose account or symbol cannot be found here are
+ * checked by the service.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "app.rate-limit.filter.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String ORDERS_PATH = "/orders";
+
+    private static final byte[] ACCOUNT_FIELD = "\"accountId\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SYMBOL_FIELD = "\"symbol\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] REJECTION_PREFIX = ("{\"status\":429,\"error\":\"Rate Limit Exceeded\","
+        + "\"message\":\"Rate limit exceeded\",\"timestamp\":\"").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] REJECTION_SUFFIX = "\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final RateLimitingService rateLimitingService;
+    private final String accountHeader;
+    private final int maxPeekBytes;
+
+    public RateLimitFilter(RateLimitingService rateLimitingService,
+                           @Value("${app.rate-limit.filter.account-header:X-Account-Id}") String accountHeader,
+                           @Value("${app.rate-limit.filter.max-peek-bytes:4096}") int maxPeekBytes) {
+        this.rateLimitingService = rateLimitingService;
+        this.accountHeader = accountHeader;
+        this.maxPeekBytes = maxPeekBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !ORDERS_PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        HttpServletRequest forwarded = request;
+        String accountId = request.getHeader(accountHeader);
+        String symbol = null;
+        int contentLength = request.getContentLength();
+        if (contentLength > 0 && contentLength <= maxPeekBytes) {
+            byte[] body = request.getInputStream().readNBytes(contentLength);
+            forwarded = new CachedBodyRequest(request, body);
+            if (accountId == null || accountId.isBlank()) {
+                accountId = findStringField(body, ACCOUNT_FIELD);
+            }
+            symbol = findStringField(body, SYMBOL_FIELD);
+        }
+
+        if (accountId != null && !accountId.isBlank() && symbol != null) {
+            RateLimitingService.Decision decision = rateLimitingService.tryConsume(accountId, symbol);
+            if (!decision.isAllowed()) {
+                log.debug("Rate limit exceeded before dispatch for account: {}, symbol: {}, level: {}",
+                    accountId, symbol, decision.rejectedBy());
+                reject(response, decision.retryAfterMillis());
+                return;
+            }
+            forwarded.setAttribute(RateLimitingService.CHARGED_ACCOUNT_ATTRIBUTE, accountId);
+        }
+        chain.doFilter(forwarded, response);
+    }
+
+    private static void reject(HttpServletResponse response, long waitMillis) throws IOException {
+        byte[] timestamp = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.now()).getBytes(StandardCharsets.US_ASCII);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitMillis + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(REJECTION_PREFIX.length + timestamp.length + REJECTION_SUFFIX.length);
+        ServletOutputStream out = response.getOutputStream();
+        out.write(REJECTION_PREFIX);
+        out.write(timestamp);
+        out.write(REJECTION_SUFFIX);
+    }
+
+    /**
+     * Value of the string field with the given quoted name, or null when it is absent or escaped.
+     * A wrong guess is harmless: the service charges the account it parses if it differs.
+     */
+    private static String findStringField(byte[] body, byte[] name) {
+        int field = indexOf(body, name);
+        if (field < 0) {
+            return null;
+        }
+        int i = skipWhitespace(body, field + name.length);
+        if (i >= body.length || body[i] != ':') {
+            return null;
+        }
+        i = skipWhitespace(body, i + 1);
+        if (i >= body.length || body[i] != '"') {
+            return null;
+        }
+        int start = ++i;
+        for (; i < body.length; i++) {
+            if (body[i] == '"') {
+                return i > start ? new String(body, start, i - start, StandardCharsets.UTF_8) : null;
+            }
+            if (body[i] == '\\') {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static int indexOf(byte[] body, byte[] target) {
+        outer:
+        for (int i = 0; i <= body.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (body[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] body, int i) {
+        while (i < body.length && (body[i] == ' ' || body[i] == '\t' || body[i] == '\n' || body[i] == '\r')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Replays a body that was already read for the account peek
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // The whole body is in memory, so it is available and read in one go
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                encoding != null ? encoding : StandardCharsets.UTF_8.name()));
+        }
+    }
+}
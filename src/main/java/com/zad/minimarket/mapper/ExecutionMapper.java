@@ -4,8 +4,6 @@ import com.zad.minimarket.dto.ExecutionResponse;
 import com.zad.minimarket.entity.Execution;
 import org.mapstruct.*;
 
-import java.math.BigDecimal;
-
 @Mapper(
     componentModel = "spring",
     nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE
@@ -13,7 +11,7 @@ import java.math.BigDecimal;
 public interface ExecutionMapper {
 
     @Mapping(target = "executedAt", expression = "java(java.time.LocalDateTime.now())")
-    Execution toEntity(Long orderId, BigDecimal price);
+    Execution toEntity(Long orderId, long price);
 
     /**
      * Convert Execution entity to ExecutionResponse DTO
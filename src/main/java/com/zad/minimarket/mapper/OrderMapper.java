@@ -7,6 +7,7 @@ import com.zad.minimarket.dto.OrderResponse;
 import com.zad.minimarket.entity.Order;
 import com.zad.minimarket.entity.OrderSide;
 import com.zad.minimarket.entity.OrderStatus;
+import com.zad.minimarket.util.FixedPoint;
 import org.mapstruct.*;
 
 @Mapper(
@@ -43,7 +44,7 @@ public interface OrderMapper {
         ExecutionResponse execution = new ExecutionResponse();
         execution.setId(projection.getExecutionId());
         execution.setOrderId(projection.getOrderId());
-        execution.setPrice(projection.getPrice());
+        execution.setPrice(FixedPoint.fromBigDecimal(projection.getPrice()));
         execution.setExecutedAt(projection.getExecutedAt());
 
         return execution;
@@ -0,0 +1,38 @@
+package com.zad.minimarket.repository;
+
+import com.zad.minimarket.entity.OrderCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderCounterRepository extends JpaRepository<OrderCounter, OrderCounter.Key> {
+
+    /**
+     * Add to a counter, creating it when missing
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO order_counters (account_id, status, stripe, order_count)
+        VALUES (:accountId, :status, :stripe, :delta)
+        ON CONFLICT (account_id, status, stripe)
+        DO UPDATE SET order_count = order_counters.order_count + EXCLUDED.order_count
+        """, nativeQuery = true)
+    void add(@Param("accountId") String accountId, @Param("status") String status,
+             @Param("stripe") int stripe, @Param("delta") long delta);
+
+    /**
+     * Counts by status for an account, or for all accounts with an empty account ID
+     */
+    @Query(value = """
+        SELECT status, SUM(order_count)
+        FROM order_counters
+        WHERE account_id = :accountId
+        GROUP BY status
+        """, nativeQuery = true)
+    List<Object[]> sumByStatus(@Param("accountId") String accountId);
+}
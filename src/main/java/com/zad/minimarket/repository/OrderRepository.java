@@ -4,11 +4,13 @@ import com.zad.minimarket.dto.OrderExecutionProjection;
 import com.zad.minimarket.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +35,10 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
         """, nativeQuery = true)
     Optional<OrderExecutionProjection> findOrderWithExecutionNative(@Param("orderId") Long orderId);
 
+    /**
+     * Orders of an account with their executions. Returned as a slice, which fetches one extra
+     * row to tell whether more follow instead of running a count over the join.
+     */
     @Query(value = """
         SELECT 
             o.id as orderId,
@@ -49,9 +55,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
         LEFT JOIN executions e ON o.id = e.order_id 
         WHERE o.account_id = :accountId
         """, nativeQuery = true)
-    Page<OrderExecutionProjection> findOrderWithExecutionByAccountId(
+    Slice<OrderExecutionProjection> findOrderWithExecutionByAccountId(
         @Param("accountId") String accountId, Pageable pageable);
 
+    /**
+     * All orders with their executions, as a slice without a count query
+     */
     @Query(value = """
     SELECT 
         o.id as orderId,
@@ -67,8 +76,107 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     FROM orders o 
     LEFT JOIN executions e ON o.id = e.order_id 
     """, nativeQuery = true)
-    Page<OrderExecutionProjection> findOrdersWithExecution(Pageable pageable);
+    Slice<OrderExecutionProjection> findOrdersWithExecution(Pageable pageable);
+
+
+    /**
+     * Newest orders of an account, first keyset page
+     */
+    @Query(value = """
+        SELECT 
+            o.id as orderId,
+            o.account_id as accountId,
+            o.symbol as symbol,
+            o.side as side,
+            o.quantity as quantity,
+            o.status as status,
+            o.created_at as createdAt,
+            e.id as executionId,
+            e.price as price,
+            e.executed_at as executedAt
+        FROM orders o 
+        LEFT JOIN executions e ON o.id = e.order_id 
+        WHERE o.account_id = :accountId
+        ORDER BY o.created_at DESC, o.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<OrderExecutionProjection> findFirstOrdersWithExecutionByAccountId(
+        @Param("accountId") String accountId, @Param("limit") int limit);
+
+    /**
+     * Orders of an account created before the cursor position, newest first. The row comparison
+     * seeks into the {@code (account_id, created_at, id)} index, so every page costs the same.
+     */
+    @Query(value = """
+        SELECT 
+            o.id as orderId,
+            o.account_id as accountId,
+            o.symbol as symbol,
+            o.side as side,
+            o.quantity as quantity,
+            o.status as status,
+            o.created_at as createdAt,
+            e.id as executionId,
+            e.price as price,
+            e.executed_at as executedAt
+        FROM orders o 
+        LEFT JOIN executions e ON o.id = e.order_id 
+        WHERE o.account_id = :accountId
+          AND (o.created_at, o.id) < (:createdAt, :id)
+        ORDER BY o.created_at DESC, o.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<OrderExecutionProjection> findOrdersWithExecutionByAccountIdBefore(
+        @Param("accountId") String accountId, @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") long id, @Param("limit") int limit);
 
+    /**
+     * Newest orders, first keyset page
+     */
+    @Query(value = """
+        SELECT 
+            o.id as orderId,
+            o.account_id as accountId,
+            o.symbol as symbol,
+            o.side as side,
+            o.quantity as quantity,
+            o.status as status,
+            o.created_at as createdAt,
+            e.id as executionId,
+            e.price as price,
+            e.executed_at as executedAt
+        FROM orders o 
+        LEFT JOIN executions e ON o.id = e.order_id 
+        ORDER BY o.created_at DESC, o.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<OrderExecutionProjection> findFirstOrdersWithExecution(
+        @Param("limit") int limit);
+
+    /**
+     * Orders created before the cursor position, newest first
+     */
+    @Query(value = """
+        SELECT 
+            o.id as orderId,
+            o.account_id as accountId,
+            o.symbol as symbol,
+            o.side as side,
+            o.quantity as quantity,
+            o.status as status,
+            o.created_at as createdAt,
+            e.id as executionId,
+            e.price as price,
+            e.executed_at as executedAt
+        FROM orders o 
+        LEFT JOIN executions e ON o.id = e.order_id 
+        WHERE (o.created_at, o.id) < (:createdAt, :id)
+        ORDER BY o.created_at DESC, o.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<OrderExecutionProjection> findOrdersWithExecutionBefore(
+        @Param("createdAt") LocalDateTime createdAt, @Param("id") long id,
+        @Param("limit") int limit);
 
     /**
      * Find all orders for a specific account ID, ordered by creation date descending
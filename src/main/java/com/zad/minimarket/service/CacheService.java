@@ -1,14 +1,15 @@
 package com.zad.minimarket.service;
 
 import com.zad.minimarket.dto.PriceResponse;
+import com.zad.minimarket.util.ExpiringLruCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
 
 @Service
 public class CacheService {
@@ -16,31 +17,40 @@ public class CacheService {
     private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
     private static final String PRICE_CACHE_PREFIX = "price:";
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, PriceResponse> redisTemplate;
+    private final RedisAvailabilityService redisAvailabilityService;
+    private final ExpiringLruCache<String, PriceResponse> localCache;
     
-    public CacheService(RedisTemplate<String, Object> redisTemplate) {
+    public CacheService(RedisTemplate<String, PriceResponse> redisTemplate,
+                        RedisAvailabilityService redisAvailabilityService,
+                        @Value("${app.redis.local-max-entries:10000}") int localMaxEntries) {
         this.redisTemplate = redisTemplate;
+        this.redisAvailabilityService = redisAvailabilityService;
+        this.localCache = new ExpiringLruCache<>(localMaxEntries);
     }
 
     /**
-     * Store price in cache with TTL
+     * Store price in cache with TTL. The price is also kept locally for when Redis is unavailable.
      */
     public void cachePrice(String symbol, PriceResponse price, Duration ttl) {
         String key = PRICE_CACHE_PREFIX + symbol;
-        redisTemplate.opsForValue().set(key, price, ttl.toSeconds(), TimeUnit.SECONDS);
+        localCache.put(symbol, price, ttl);
+        redisAvailabilityService.run(() -> redisTemplate.opsForValue().set(key, price, ttl));
         logger.debug("Cached price for symbol {} with TTL: {}", symbol, ttl);
     }
     
     /**
-     * Get cached price directly from Redis
+     * Get cached price from Redis, or from the local cache while Redis is unavailable
      */
     public PriceResponse getCachedPriceFromRedis(String symbol) {
         String key = PRICE_CACHE_PREFIX + symbol;
-        Object cached = redisTemplate.opsForValue().get(key);
+        PriceResponse cached = redisAvailabilityService.execute(
+            () -> redisTemplate.opsForValue().get(key),
+            () -> localCache.get(symbol));
         
-        if (cached instanceof PriceResponse) {
+        if (cached != null) {
             logger.debug("Cache hit for price: {}", symbol);
-            return (PriceResponse) cached;
+            return cached;
         }
         
         logger.debug("Cache miss for price: {}", symbol);
@@ -53,9 +63,9 @@ public class CacheService {
     @CacheEvict(value = "prices", key = "#symbol")
     public void evictPriceCache(String symbol) {
         String key = PRICE_CACHE_PREFIX + symbol;
-        redisTemplate.delete(key);
+        localCache.remove(symbol);
+        redisAvailabilityService.run(() -> redisTemplate.delete(key));
         logger.debug("Evicted price cache for symbol: {}", symbol);
     }
 
 }
-
@@ -0,0 +1,174 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceResponse;
+import com.zad.minimarket.util.IdleExpiringCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Local table of prices broadcast by the cluster's price feed leader over Redis pub/sub.
+ * <p>
+ * Symbols with a price, whether broadcast or fetched by this node, are registered in a shared
+ * active symbol set that the leader polls; symbols that never resolve to a price are not, so
+ * junk symbols from clients never reach the leader. The set keeps the {@code max-active-symbols}
+ * most recently marked symbols. A price older than {@code stale-after} is not served, so
+ * requests fall back to fetching on their own while no leader is publishing. Prices are kept
+ * for the same {@code max-active-symbols} and dropped once neither broadcast nor read for the
+ * active symbol TTL.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.price-feed.cluster.enabled", havingValue = "true")
+public class ClusterPriceTable implements MessageListener {
+
+    public static final String CHANNEL = "price-feed:updates";
+    static final String ACTIVE_SYMBOLS_KEY = "price-feed:active-symbols";
+
+    private final StringRedisTemplate redisTemplate;
+    private final List<PriceTickListener> priceTickListeners;
+    private final long staleAfterMillis;
+    private final long activeSymbolTtlMillis;
+    private final int maxActiveSymbols;
+    private final LongSupplier clock;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final IdleExpiringCache<String, AtomicReference<ClusterPrice>> prices;
+    private final IdleExpiringCache<String, AtomicLong> activeMarks;
+
+    @Autowired
+    public ClusterPriceTable(StringRedisTemplate redisTemplate,
+                             List<PriceTickListener> priceTickListeners,
+                             @Value("${app.price-feed.cluster.stale-after:3000}") long staleAfterMillis,
+                             @Value("${app.price-feed.cluster.active-symbol-ttl:60000}") long activeSymbolTtlMillis,
+                             @Value("${app.price-feed.cluster.max-active-symbols:10000}") int maxActiveSymbols) {
+        this(redisTemplate, priceTickListeners, staleAfterMillis, activeSymbolTtlMillis, maxActiveSymbols,
+            System::currentTimeMillis);
+    }
+
+    ClusterPriceTable(StringRedisTemplate redisTemplate, List<PriceTickListener> priceTickListeners,
+                      long staleAfterMillis, long activeSymbolTtlMillis, int maxActiveSymbols, LongSupplier clock) {
+        this.redisTemplate = redisTemplate;
+        this.priceTickListeners = priceTickListeners;
+        this.staleAfterMillis = staleAfterMillis;
+        this.activeSymbolTtlMillis = activeSymbolTtlMillis;
+        this.maxActiveSymbols = maxActiveSymbols;
+        this.clock = clock;
+        this.prices = new IdleExpiringCache<>(maxActiveSymbols, activeSymbolTtlMillis, cause -> { }, clock);
+        this.activeMarks = new IdleExpiringCache<>(maxActiveSymbols, activeSymbolTtlMillis, cause -> { }, clock);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Latest broadcast price for a symbol, or null if none is fresh. A fresh price keeps the
+     * symbol active.
+     */
+    public PriceResponse getPrice(String symbol) {
+        long now = clock.getAsLong();
+        AtomicReference<ClusterPrice> entry = prices.getIfPresent(symbol);
+        ClusterPrice clusterPrice = entry != null ? entry.get() : null;
+        if (clusterPrice == null || now - clusterPrice.timestamp() > staleAfterMillis) {
+            return null;
+        }
+        markActive(symbol, now);
+        PriceResponse price = new PriceResponse();
+        price.setSymbol(symbol);
+        price.setPrice(clusterPrice.price());
+        return price;
+    }
+
+    /**
+     * Symbols requested anywhere in the cluster within the active symbol TTL
+     */
+    public Set<String> getActiveSymbols() {
+        long cutoff = clock.getAsLong() - activeSymbolTtlMillis;
+        redisTemplate.opsForZSet().removeRangeByScore(ACTIVE_SYMBOLS_KEY, Double.NEGATIVE_INFINITY, cutoff);
+        Set<String> symbols = redisTemplate.opsForZSet().rangeByScore(ACTIVE_SYMBOLS_KEY, cutoff, Double.POSITIVE_INFINITY);
+        return symbols != null ? symbols : Set.of();
+    }
+
+    /**
+     * Broadcast a fetched price to every node
+     */
+    public void publish(String symbol, long timestampMillis, long price) {
+        redisTemplate.convertAndSend(CHANNEL, nodeId + '|' + symbol + '|' + timestampMillis + '|' + price);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|");
+        if (parts.length != 4) {
+            log.warn("Ignoring malformed price broadcast");
+            return;
+        }
+        String symbol = parts[1];
+        long timestamp;
+        long price;
+        try {
+            timestamp = Long.parseLong(parts[2]);
+            price = Long.parseLong(parts[3]);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed price broadcast for {}", symbol);
+            return;
+        }
+
+        ClusterPrice update = new ClusterPrice(timestamp, price);
+        ClusterPrice latest = prices.computeIfAbsent(symbol, s -> new AtomicReference<>()).accumulateAndGet(update,
+            (current, next) -> current != null && current.timestamp() > next.timestamp() ? current : next);
+        if (latest != update) {
+            return;
+        }
+
+        // The publishing node already notified its listeners when it fetched the price
+        if (!nodeId.equals(parts[0])) {
+            for (PriceTickListener listener : priceTickListeners) {
+                listener.onTick(symbol, timestamp, price);
+            }
+        }
+    }
+
+    /**
+     * Register a symbol this node fetched a price for, so the leader polls it
+     */
+    public void markActive(String symbol) {
+        markActive(symbol, clock.getAsLong());
+    }
+
+    private void markActive(String symbol, long now) {
+        AtomicLong lastMark = activeMarks.computeIfAbsent(symbol, s -> new AtomicLong(Long.MIN_VALUE));
+        long previous = lastMark.get();
+        if (previous != Long.MIN_VALUE && now - previous < activeSymbolTtlMillis / 4) {
+            return;
+        }
+        if (!lastMark.compareAndSet(previous, now)) {
+            return;
+        }
+        try {
+            redisTemplate.opsForZSet().add(ACTIVE_SYMBOLS_KEY, symbol, now);
+            // Keep only the most recently marked symbols
+            redisTemplate.opsForZSet().removeRange(ACTIVE_SYMBOLS_KEY, 0, -maxActiveSymbols - 1L);
+        } catch (DataAccessException e) {
+            lastMark.set(Long.MIN_VALUE);
+            log.warn("Failed to register active symbol {}: {}", symbol, e.getMessage());
+        }
+    }
+
+    private record ClusterPrice(long timestamp, long price) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.util.IdleExpiringCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-account token buckets shared by all nodes through Redis.
+ * <p>
+ * Each node leases up to {@code lease-size} tokens at a time from the shared bucket and
+ * spends them locally, so Redis sees one script call per lease rather than per order.
+ * Leased tokens are taken out of the shared bucket, so nodes together never admit more than
+ * the limit. Tokens still unspent when a lease expires after {@code lease-ttl} are handed back
+ * with the next lease. When the shared bucket is empty the script reports when the next token
+ * is due, and the node rejects locally until then.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.rate-limit.cluster.enabled", havingValue = "true")
+public class ClusterRateLimiter {
+
+    static final String KEY_PREFIX = "rate-limit:";
+
+    /**
+     * Refills the bucket by Redis time, adds back returned tokens, grants up to the requested
+     * tokens and returns {granted, millis until the next token}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LEASE_SCRIPT = new DefaultRedisScript<>(
+        "local capacity = tonumber(ARGV[1]) "
+            + "local rate = tonumber(ARGV[2]) "
+            + "local time = redis.call('TIME') "
+            + "local now = time[1] * 1000 + math.floor(time[2] / 1000) "
+            + "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') "
+            + "local tokens = tonumber(state[1]) or capacity "
+            + "local ts = tonumber(state[2]) or now "
+            + "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate + tonumber(ARGV[4])) "
+            + "local granted = math.min(tonumber(ARGV[3]), math.floor(tokens)) "
+            + "tokens = tokens - granted "
+            + "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now) "
+            + "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate)) "
+            + "local wait = 0 "
+            + "if granted == 0 then wait = math.ceil((1 - tokens) / rate) end "
+            + "return {granted, wait}",
+        List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisAvailabilityService redisAvailabilityService;
+    private final int configuredLeaseSize;
+    private volatile int bucketCapacity;
+    private volatile double tokensPerMilli;
+    private volatile int leaseSize;
+    private final long leaseTtlMillis;
+    private final LongSupplier clock;
+    private final IdleExpiringCache<String, Lease> leases;
+    private final Counter leaseCalls;
+    private final Counter returnedTokens;
+
+    @Autowired
+    public ClusterRateLimiter(StringRedisTemplate redisTemplate,
+                              RedisAvailabilityService redisAvailabilityService,
+                              @Value("${app.rate-limit.requests-per-second}") int requestsPerSecond,
+                              @Value("${app.rate-limit.bucket-capacity}") int bucketCapacity,
+                              @Value("${app.rate-limit.cluster.lease-size:2}") int leaseSize,
+                              @Value("${app.rate-limit.cluster.lease-ttl:250}") long leaseTtlMillis,
+                              @Value("${app.rate-limit.max-buckets:100000}") int maxBuckets,
+                              MeterRegistry meterRegistry) {
+        this(redisTemplate, redisAvailabilityService, requestsPerSecond, bucketCapacity, leaseSize, leaseTtlMillis,
+            maxBuckets, meterRegistry, System::currentTimeMillis);
+    }
+
+    ClusterRateLimiter(StringRedisTemplate redisTemplate, RedisAvailabilityService redisAvailabilityService,
+                       int requestsPerSecond, int bucketCapacity, int leaseSize, long leaseTtlMillis,
+                       int maxBuckets, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.redisTemplate = redisTemplate;
+        this.redisAvailabilityService = redisAvailabilityService;
+        this.configuredLeaseSize = leaseSize;
+        updateLimit(requestsPerSecond, bucketCapacity);
+        this.leaseTtlMillis = leaseTtlMillis;
+        this.clock = clock;
+        // Once the shared bucket has had time to refill completely, unspent tokens no longer matter
+        long fullRefillMillis = Math.ceilDiv(bucketCapacity * 1000L, requestsPerSecond);
+        this.leases = new IdleExpiringCache<>(maxBuckets, leaseTtlMillis + fullRefillMillis, cause -> { }, clock);
+        this.leaseCalls = Counter.builder("rate.limit.cluster.leases")
+            .description("Token leases requested from the shared Redis buckets")
+            .register(meterRegistry);
+        this.returnedTokens = Counter.builder("rate.limit.cluster.tokens.returned")
+            .description("Unspent leased tokens handed back to the shared Redis buckets")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Take one token for the account from this node's lease, leasing more from Redis when it
+     * runs out. Returns 0 if a token was taken, otherwise the milliseconds until the next token
+     * is due. While Redis is unavailable the local fallback decides.
+     */
+    public long tryConsume(String accountId, LongSupplier fallback) {
+        Lease lease = leases.computeIfAbsent(accountId, key -> new Lease());
+        synchronized (lease) {
+            long now = clock.getAsLong();
+            if (now < lease.expiresAt) {
+                if (lease.remaining > 0) {
+                    lease.remaining--;
+                    return 0;
+                }
+                if (now < lease.deniedUntil) {
+                    return lease.deniedUntil - now;
+                }
+            }
+
+            int unspent = now < lease.expiresAt ? 0 : lease.remaining;
+            lease.remaining = 0;
+            long[] result = redisAvailabilityService.execute(() -> lease(accountId, unspent), () -> null);
+            if (result == null) {
+                return fallback.getAsLong();
+            }
+            returnedTokens.increment(unspent);
+
+            lease.expiresAt = now + leaseTtlMillis;
+            if (result[0] == 0) {
+                lease.deniedUntil = now + Math.min(result[1], leaseTtlMillis);
+                return Math.max(1, result[1]);
+            }
+            lease.remaining = (int) result[0] - 1;
+            return 0;
+        }
+    }
+
+    /**
+     * Give back a token taken from the lease by {@link #tryConsume} for a request that was
+     * rejected elsewhere. Only tokens of a lease that is still current go back; others are left
+     * to expire. Tokens granted by the local fallback must be refunded to it by the caller.
+     */
+    public void refund(String accountId) {
+        Lease lease = leases.computeIfAbsent(accountId, key -> new Lease());
+        synchronized (lease) {
+            if (clock.getAsLong() < lease.expiresAt) {
+                lease.remaining++;
+            }
+        }
+    }
+
+    /**
+     * Change the shared bucket limit. Buckets already in Redis pick it up on their next lease.
+     */
+    public void updateLimit(int requestsPerSecond, int bucketCapacity) {
+        this.tokensPerMilli = requestsPerSecond / 1000.0;
+        this.leaseSize = Math.max(1, Math.min(configuredLeaseSize, bucketCapacity));
+        this.bucketCapacity = bucketCapacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private long[] lease(String accountId, int unspent) {
+        leaseCalls.increment();
+        List<Long> result = redisTemplate.execute(LEASE_SCRIPT, List.of(KEY_PREFIX + accountId),
+            String.valueOf(bucketCapacity), String.valueOf(tokensPerMilli), String.valueOf(leaseSize),
+            String.valueOf(unspent));
+        return new long[] {result.get(0), result.get(1)};
+    }
+
+    private static final class Lease {
+
+        private int remaining;
+        private long expiresAt;
+        private long deniedUntil;
+    }
+}
@@ -4,7 +4,6 @@ import com.zad.minimarket.dto.ExecutionResponse;
 import com.zad.minimarket.entity.Execution;
 import com.zad.minimarket.mapper.ExecutionMapper;
 import com.zad.minimarket.repository.ExecutionRepository;
-import java.math.BigDecimal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -16,7 +15,7 @@ public class ExecutionService {
 
     private final ExecutionMapper executionMapper;
 
-    public ExecutionResponse saveExecution(Long orderId, BigDecimal price) {
+    public ExecutionResponse saveExecution(Long orderId, long price) {
         Execution execution = executionMapper.toEntity(orderId, price);
         return executionMapper.toExecutionResponse(executionRepository.save(execution));
     }
@@ -0,0 +1,43 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceResponse;
+import com.zad.minimarket.exception.PriceFeedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Fetches prices from the external price feed over HTTP
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.price-feed.mode", havingValue = "http", matchIfMissing = true)
+public class HttpPriceFeedClient implements PriceFeedClient {
+
+    private final RestTemplate restTemplate;
+    private final String priceFeedBaseUrl;
+
+    public HttpPriceFeedClient(RestTemplate restTemplate,
+                               @Value("${app.price-feed.base-url}") String priceFeedBaseUrl) {
+        this.restTemplate = restTemplate;
+        this.priceFeedBaseUrl = priceFeedBaseUrl;
+    }
+
+    @Override
+    public PriceResponse fetchPrice(String symbol) {
+        String url = priceFeedBaseUrl + "/price?symbol=" + symbol;
+        log.debug("Fetching price from: {}", url);
+
+        ResponseEntity<PriceResponse> response = restTemplate.getForEntity(url, PriceResponse.class);
+
+        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+            return response.getBody();
+        } else {
+            throw new PriceFeedException("Invalid response from price feed service");
+        }
+    }
+}
@@ -1,53 +1,163 @@
 package com.zad.minimarket.service;
 
-import com.zad.minimarket.dto.OrderResponse;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import java.time.Duration;
-import org.springframework.data.redis.core.RedisTemplate;
+import com.zad.minimarket.dto.IdempotentResponse;
+import com.zad.minimarket.exception.IdempotencyConflictException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reserves idempotency keys and stores the responses they produced in the configured
+ * {@link IdempotencyStore}.
+ * <p>
+ * Requests that find their key in flight wait until the owner completes or releases it. The
+ * owner signals waiters on this node directly; the store signals completions on other nodes.
+ * Duplicates of a key in flight on this node never reach the store.
+ */
+@Slf4j
 @Service
 public class IdempotencyService {
 
-    private static final String IDEMPOTENCY_KEY_PREFIX = "idempotency:";
     private static final Duration IDEMPOTENCY_KEY_TTL = Duration.ofMinutes(5);
 
-    private final RedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final IdempotencyStore idempotencyStore;
+    private final Duration inFlightTtl;
+    private final Map<String, Boolean> localInFlight = new ConcurrentHashMap<>();
+    private final Map<String, List<CompletableFuture<Void>>> waiters = new ConcurrentHashMap<>();
 
-    public IdempotencyService(RedisTemplate<String, String> redisTemplate, ObjectMapper objectMapper) {
-        this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+    public IdempotencyService(IdempotencyStore idempotencyStore,
+                              @Value("${app.idempotency.in-flight-ttl:30000}") long inFlightTtlMillis) {
+        this.idempotencyStore = idempotencyStore;
+        this.inFlightTtl = Duration.ofMillis(inFlightTtlMillis);
+        idempotencyStore.onRemoteCompletion(this::signal);
     }
 
-    public boolean isKeyProcessed(String idempotencyKey) {
-        return redisTemplate.hasKey(IDEMPOTENCY_KEY_PREFIX + idempotencyKey);
+    /**
+     * Claim the key for this request, or return the response stored under it. While another
+     * request holds the key, waits for it to finish for up to the in-flight TTL.
+     */
+    public Reservation reserve(String idempotencyKey) {
+        long deadline = System.nanoTime() + inFlightTtl.toNanos();
+        while (true) {
+            // Register before looking so a completion in between is not missed
+            CompletableFuture<Void> signal = new CompletableFuture<>();
+            addWaiter(idempotencyKey, signal);
+            try {
+                Reservation reservation = tryReserve(idempotencyKey);
+                if (!reservation.isInFlight()) {
+                    return reservation;
+                }
+                log.debug("Idempotency key {} is in flight, waiting for completion", idempotencyKey);
+                signal.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                throw new IdempotencyConflictException("Request with idempotency key " + idempotencyKey + " is still in progress");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotencyConflictException("Interrupted waiting for idempotency key " + idempotencyKey, e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                removeWaiter(idempotencyKey, signal);
+            }
+        }
     }
 
-    public void saveOrderResponse(String idempotencyKey, OrderResponse orderResponse) {
+    /**
+     * Store the response for a key reserved by this request and wake up waiting duplicates
+     */
+    public void complete(String idempotencyKey, IdempotentResponse response) {
         try {
-            String responseJson = objectMapper.writeValueAsString(orderResponse);
-            redisTemplate.opsForValue().set(IDEMPOTENCY_KEY_PREFIX + idempotencyKey, responseJson, IDEMPOTENCY_KEY_TTL);
-        } catch (Exception e) {
-            // Log error
-            throw new RuntimeException("Failed to save idempotency key", e);
+            idempotencyStore.complete(idempotencyKey, response, IDEMPOTENCY_KEY_TTL);
+        } finally {
+            localInFlight.remove(idempotencyKey);
+            signal(idempotencyKey);
         }
     }
 
-    public OrderResponse getProcessedOrderResponse(String idempotencyKey) {
+    /**
+     * Give up a key reserved by this request so a duplicate can retry it
+     */
+    public void release(String idempotencyKey) {
         try {
-            String responseJson = redisTemplate.opsForValue().get(IDEMPOTENCY_KEY_PREFIX + idempotencyKey);
-            if (responseJson != null) {
-                return objectMapper.readValue(responseJson, OrderResponse.class);
-            }
-            return null;
-        } catch (Exception e) {
-            // Log error
-            throw new RuntimeException("Failed to retrieve idempotency key", e);
+            idempotencyStore.release(idempotencyKey);
+        } finally {
+            localInFlight.remove(idempotencyKey);
+            signal(idempotencyKey);
+        }
+    }
+
+    private Reservation tryReserve(String idempotencyKey) {
+        if (localInFlight.putIfAbsent(idempotencyKey, Boolean.TRUE) != null) {
+            return Reservation.inFlight();
+        }
+        Reservation reservation;
+        try {
+            reservation = idempotencyStore.reserve(idempotencyKey, inFlightTtl);
+        } catch (RuntimeException e) {
+            localInFlight.remove(idempotencyKey);
+            throw e;
+        }
+        if (!reservation.owner()) {
+            localInFlight.remove(idempotencyKey);
+        }
+        return reservation;
+    }
+
+    private void addWaiter(String idempotencyKey, CompletableFuture<Void> signal) {
+        waiters.compute(idempotencyKey, (key, signals) -> {
+            List<CompletableFuture<Void>> updated = signals != null ? signals : new ArrayList<>(2);
+            updated.add(signal);
+            return updated;
+        });
+    }
+
+    private void removeWaiter(String idempotencyKey, CompletableFuture<Void> signal) {
+        waiters.computeIfPresent(idempotencyKey, (key, signals) -> {
+            signals.remove(signal);
+            return signals.isEmpty() ? null : signals;
+        });
+    }
+
+    private void signal(String idempotencyKey) {
+        List<CompletableFuture<Void>> signals = waiters.remove(idempotencyKey);
+        if (signals != null) {
+            signals.forEach(signal -> signal.complete(null));
         }
     }
 
-    public void removeKey(String idempotencyKey) {
-        redisTemplate.delete(IDEMPOTENCY_KEY_PREFIX + idempotencyKey);
+    /**
+     * Outcome of reserving a key: this request owns it, another request holds it, or it
+     * already has a response
+     */
+    public record Reservation(boolean owner, IdempotentResponse response) {
+
+        private static final Reservation OWNED = new Reservation(true, null);
+        private static final Reservation IN_FLIGHT = new Reservation(false, null);
+
+        public static Reservation owned() {
+            return OWNED;
+        }
+
+        public static Reservation inFlight() {
+            return IN_FLIGHT;
+        }
+
+        public static Reservation completed(IdempotentResponse response) {
+            return new Reservation(false, response);
+        }
+
+        public boolean isInFlight() {
+            return !owner && response == null;
+        }
     }
 }
@@ -0,0 +1,35 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.IdempotentResponse;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Backend holding idempotency keys and the responses stored under them,
+ * selected with {@code app.idempotency.store}
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Atomically claim the key as in flight for the given TTL, or report what is already stored under it
+     */
+    IdempotencyService.Reservation reserve(String idempotencyKey, Duration inFlightTtl);
+
+    /**
+     * Store the response for a key claimed by this node
+     */
+    void complete(String idempotencyKey, IdempotentResponse response, Duration ttl);
+
+    /**
+     * Drop the in-flight claim on a key held by this node
+     */
+    void release(String idempotencyKey);
+
+    /**
+     * Register a callback for keys completed or released by other nodes. Stores that are
+     * not shared between nodes never call it.
+     */
+    default void onRemoteCompletion(Consumer<String> listener) {
+    }
+}
@@ -0,0 +1,347 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.IdempotentResponse;
+import com.zad.minimarket.exception.IdempotencyConflictException;
+import com.zad.minimarket.exception.IdempotencyStoreFullException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Idempotency store for single-node deployments, kept off-heap in a memory-mapped file.
+ * <p>
+ * The file is a set-associative hash table: a key hashes to one bucket of {@value #WAYS}
+ * fixed-size slots, so every operation touches at most one bucket and the footprint is
+ * fixed at {@code capacity * slot-size} bytes. Expired slots are reused; when a bucket is
+ * full of live keys, the completed key closest to expiry is evicted, and when all of them are
+ * in flight the new key is turned away until the first one expires. Entries survive a
+ * restart through the file, except keys that were still in flight, which are dropped.
+ * <p>
+ * Keys are limited to {@value #MAX_KEY_BYTES} bytes and a slot must hold such a key plus a
+ * response of {@code max-response-bytes}. Completing a key never fails, since the request has
+ * already executed: a larger response is kept as a completed key without a body, and a key
+ * whose reservation was lost takes any slot in its bucket, at worst another key's reservation,
+ * which {@link IdempotencyService} still holds in flight on this node.
+ * <p>
+ * File layout: a {@value #HEADER_SIZE} byte header (magic, version, capacity, slot size),
+ * then the slots. A slot holds the state, key length, value length, expiry in epoch millis
+ * key hash and response status, followed by the key and the response body.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "mapped")
+public class MappedIdempotencyStore implements IdempotencyStore {
+
+    static final int WAYS = 8;
+    static final int HEADER_SIZE = 32;
+    static final int MAX_KEY_BYTES = 128;
+
+    private static final int MAGIC = 0x4D4D4953;
+    private static final int VERSION = 2;
+
+    private static final byte EMPTY = 0;
+    private static final byte IN_FLIGHT = 1;
+    private static final byte COMPLETED = 2;
+    /**
+     * Completed, but the response was too large to keep
+     */
+    private static final byte BODY_UNAVAILABLE = 3;
+
+    private static final int STATE = 0;
+    private static final int KEY_LENGTH = 1;
+    private static final int VALUE_LENGTH = 3;
+    private static final int EXPIRES_AT = 7;
+    private static final int KEY_HASH = 15;
+    private static final int STATUS = 23;
+    private static final int DATA = 25;
+
+    private final Path path;
+    private final int buckets;
+    private final int slotSize;
+    private final LongSupplier clock;
+    private final FileChannel channel;
+    private final MappedByteBuffer table;
+
+    @Autowired
+    public MappedIdempotencyStore(@Value("${app.idempotency.mapped.path:data/idempotency.bin}") Path path,
+                                  @Value("${app.idempotency.mapped.capacity:65536}") int capacity,
+                                  @Value("${app.idempotency.mapped.slot-size:1280}") int slotSize,
+                                  @Value("${app.idempotency.mapped.max-response-bytes:1024}") int maxResponseBytes)
+            throws IOException {
+        this(path, capacity, slotSize, maxResponseBytes, System::currentTimeMillis);
+    }
+
+    MappedIdempotencyStore(Path path, int capacity, int slotSize, int maxResponseBytes, LongSupplier clock)
+            throws IOException {
+        if (capacity <= 0 || maxResponseBytes <= 0) {
+            throw new IllegalArgumentException("Invalid idempotency store capacity or response size");
+        }
+        if (slotSize < DATA + MAX_KEY_BYTES + maxResponseBytes) {
+            throw new IllegalArgumentException("Idempotency store slot size must be at least "
+                + (DATA + MAX_KEY_BYTES + maxResponseBytes) + " bytes to hold a " + MAX_KEY_BYTES
+                + " byte key and a " + maxResponseBytes + " byte response");
+        }
+        this.path = path;
+        this.buckets = (capacity + WAYS - 1) / WAYS;
+        this.slotSize = slotSize;
+        this.clock = clock;
+
+        long size = HEADER_SIZE + (long) buckets * WAYS * slotSize;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Idempotency store must be smaller than 2 GB");
+        }
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        boolean existing = Files.exists(path);
+        if (existing && Files.size(path) != size) {
+            log.warn("Idempotency store {} was sized for a different capacity, starting empty", path);
+            Files.delete(path);
+            existing = false;
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (existing && table.getInt(0) == MAGIC && table.getInt(4) == VERSION
+                && table.getInt(8) == buckets * WAYS && table.getInt(12) == slotSize) {
+            int live = recover();
+            log.info("Opened idempotency store {} with {} live keys", path, live);
+        } else {
+            if (existing) {
+                log.warn("Idempotency store {} has a different layout, starting empty", path);
+            }
+            initialize(size);
+        }
+    }
+
+    @Override
+    public synchronized IdempotencyService.Reservation reserve(String idempotencyKey, Duration inFlightTtl) {
+        byte[] key = keyBytes(idempotencyKey);
+        long hash = hash(key);
+        long now = clock.getAsLong();
+
+        int slot = find(key, hash, now);
+        if (slot >= 0) {
+            byte state = table.get(slot + STATE);
+            if (state == IN_FLIGHT) {
+                return IdempotencyService.Reservation.inFlight();
+            }
+            if (state == BODY_UNAVAILABLE) {
+                throw new IdempotencyConflictException("Request with idempotency key " + idempotencyKey
+                    + " was already completed; its response is not available");
+            }
+            return IdempotencyService.Reservation.completed(readValue(slot));
+        }
+        int victim = victim(hash, now, false);
+        if (victim < 0) {
+            log.warn("Idempotency store bucket is full of in-flight keys, rejecting new key");
+            throw new IdempotencyStoreFullException("Too many requests in progress, retry later",
+                firstExpiry(hash) - now);
+        }
+        write(victim, IN_FLIGHT, key, hash, 0, new byte[0], now + inFlightTtl.toMillis());
+        return IdempotencyService.Reservation.owned();
+    }
+
+    @Override
+    public synchronized void complete(String idempotencyKey, IdempotentResponse response, Duration ttl) {
+        byte[] key = keyBytes(idempotencyKey);
+        byte[] value = response.body();
+        long hash = hash(key);
+        long now = clock.getAsLong();
+
+        int slot = find(key, hash, now);
+        if (slot < 0) {
+            log.warn("Reservation for idempotency key {} was lost before completion", idempotencyKey);
+            slot = victim(hash, now, true);
+        }
+        if (DATA + key.length + value.length > slotSize) {
+            // The order has executed, so the key must still turn duplicates away
+            log.error("Response for idempotency key {} needs {} bytes, more than the {} byte slot; "
+                + "keeping the key without its response", idempotencyKey, DATA + key.length + value.length, slotSize);
+            write(slot, BODY_UNAVAILABLE, key, hash, response.status(), new byte[0], now + ttl.toMillis());
+            return;
+        }
+        write(slot, COMPLETED, key, hash, response.status(), value, now + ttl.toMillis());
+    }
+
+    @Override
+    public synchronized void release(String idempotencyKey) {
+        byte[] key = keyBytes(idempotencyKey);
+        int slot = find(key, hash(key), clock.getAsLong());
+        if (slot >= 0 && table.get(slot + STATE) == IN_FLIGHT) {
+            table.put(slot + STATE, EMPTY);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        table.force();
+        channel.close();
+        log.info("Closed idempotency store {}", path);
+    }
+
+    /**
+     * The key as stored, rejecting keys longer than {@value #MAX_KEY_BYTES} bytes
+     */
+    private static byte[] keyBytes(String idempotencyKey) {
+        byte[] key = idempotencyKey.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Idempotency key must be at most " + MAX_KEY_BYTES + " bytes");
+        }
+        return key;
+    }
+
+    /**
+     * Offset of the live slot holding the key, or -1
+     */
+    private int find(byte[] key, long hash, long now) {
+        int bucket = bucketOffset(hash);
+        for (int way = 0; way < WAYS; way++) {
+            int slot = bucket + way * slotSize;
+            if (isLive(slot, now) && table.getLong(slot + KEY_HASH) == hash && keyEquals(slot, key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Slot to write a key into: a free or expired slot, else the completed key closest to
+     * expiry, else, only when allowed, the in-flight key closest to expiry. Returns -1 when
+     * every slot is in flight and those may not be taken.
+     */
+    private int victim(long hash, long now, boolean evictInFlight) {
+        int bucket = bucketOffset(hash);
+        int completed = -1;
+        long completedExpiry = Long.MAX_VALUE;
+        int inFlight = -1;
+        long inFlightExpiry = Long.MAX_VALUE;
+        for (int way = 0; way < WAYS; way++) {
+            int slot = bucket + way * slotSize;
+            if (!isLive(slot, now)) {
+                return slot;
+            }
+            long expiresAt = table.getLong(slot + EXPIRES_AT);
+            if (table.get(slot + STATE) != IN_FLIGHT) {
+                if (expiresAt < completedExpiry) {
+                    completed = slot;
+                    completedExpiry = expiresAt;
+                }
+            } else if (expiresAt < inFlightExpiry) {
+                inFlight = slot;
+                inFlightExpiry = expiresAt;
+            }
+        }
+        if (completed >= 0) {
+            log.debug("Evicting idempotency key before expiry, store at capacity");
+            return completed;
+        }
+        if (evictInFlight) {
+            log.warn("Idempotency store bucket is full of in-flight keys, evicting one to store a completed key");
+            return inFlight;
+        }
+        return -1;
+    }
+
+    private long firstExpiry(long hash) {
+        int bucket = bucketOffset(hash);
+        long firstExpiry = Long.MAX_VALUE;
+        for (int way = 0; way < WAYS; way++) {
+            firstExpiry = Math.min(firstExpiry, table.getLong(bucket + way * slotSize + EXPIRES_AT));
+        }
+        return firstExpiry;
+    }
+
+    private void write(int slot, byte state, byte[] key, long hash, int status, byte[] value, long expiresAt) {
+        // Write the state last so a crash mid-write never leaves a half-written live slot
+        table.put(slot + STATE, EMPTY);
+        table.put(slot + DATA, key);
+        table.put(slot + DATA + key.length, value);
+        table.putShort(slot + KEY_LENGTH, (short) key.length);
+        table.putInt(slot + VALUE_LENGTH, value.length);
+        table.putLong(slot + EXPIRES_AT, expiresAt);
+        table.putLong(slot + KEY_HASH, hash);
+        table.putShort(slot + STATUS, (short) status);
+        table.put(slot + STATE, state);
+    }
+
+    private IdempotentResponse readValue(int slot) {
+        int keyLength = table.getShort(slot + KEY_LENGTH);
+        byte[] body = new byte[table.getInt(slot + VALUE_LENGTH)];
+        table.get(slot + DATA + keyLength, body);
+        return new IdempotentResponse(table.getShort(slot + STATUS), body);
+    }
+
+    private boolean isLive(int slot, long now) {
+        return table.get(slot + STATE) != EMPTY && table.getLong(slot + EXPIRES_AT) > now;
+    }
+
+    private boolean keyEquals(int slot, byte[] key) {
+        if (table.getShort(slot + KEY_LENGTH) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (table.get(slot + DATA + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int bucketOffset(long hash) {
+        return HEADER_SIZE + (int) Math.floorMod(hash, (long) buckets) * WAYS * slotSize;
+    }
+
+    private void initialize(long size) {
+        for (int slot = HEADER_SIZE; slot < size; slot += slotSize) {
+            table.put(slot + STATE, EMPTY);
+        }
+        for (int offset = 0; offset < HEADER_SIZE; offset++) {
+            table.put(offset, (byte) 0);
+        }
+        table.putInt(0, MAGIC);
+        table.putInt(4, VERSION);
+        table.putInt(8, buckets * WAYS);
+        table.putInt(12, slotSize);
+    }
+
+    /**
+     * Drop keys left in flight by the previous process and count the live ones
+     */
+    private int recover() {
+        long now = clock.getAsLong();
+        int live = 0;
+        for (int slot = HEADER_SIZE; slot < table.capacity(); slot += slotSize) {
+            if (table.get(slot + STATE) == IN_FLIGHT) {
+                table.put(slot + STATE, EMPTY);
+            } else if (isLive(slot, now)) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    private static long hash(byte[] key) {
+        // FNV-1a with a final avalanche so neighbouring keys spread across buckets
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        return hash ^ (hash >>> 33);
+    }
+}
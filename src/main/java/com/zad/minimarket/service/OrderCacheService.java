@@ -0,0 +1,172 @@
+package com.zad.minimarket.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zad.minimarket.dto.ExecutionResponse;
+import com.zad.minimarket.dto.OrderResponse;
+import com.zad.minimarket.entity.OrderStatus;
+import com.zad.minimarket.util.ExpiringLruCache;
+import com.zad.minimarket.util.FixedPoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.RoundingMode;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * Read-through cache of orders that reached a final status and can no longer change: a bounded
+ * local tier in front of Redis. Every response carries a strong ETag, the hash of its JSON
+ * representation, so clients polling a finished order get a 304 without the order being read
+ * from the database.
+ */
+@Slf4j
+@Service
+public class OrderCacheService {
+
+    private static final String ORDER_CACHE_PREFIX = "order:";
+    private static final Set<OrderStatus> FINAL_STATUSES = EnumSet.of(OrderStatus.EXECUTED, OrderStatus.FAILED);
+
+    /**
+     * An order response and its strong ETag
+     */
+    public record TaggedOrder(OrderResponse order, String etag) {
+    }
+
+    private final RedisTemplate<String, OrderResponse> redisTemplate;
+    private final RedisAvailabilityService redisAvailabilityService;
+    private final ObjectMapper objectMapper;
+    private final ExpiringLruCache<Long, TaggedOrder> localCache;
+    private final Duration localTtl;
+    private final Duration ttl;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public OrderCacheService(RedisTemplate<String, OrderResponse> redisTemplate,
+                             RedisAvailabilityService redisAvailabilityService,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.order-cache.local-max-entries:10000}") int localMaxEntries,
+                             @Value("${app.order-cache.local-ttl:600000}") long localTtlMillis,
+                             @Value("${app.order-cache.ttl:86400000}") long ttlMillis) {
+        this.redisTemplate = redisTemplate;
+        this.redisAvailabilityService = redisAvailabilityService;
+        this.objectMapper = objectMapper;
+        this.localCache = new ExpiringLruCache<>(localMaxEntries);
+        this.localTtl = Duration.ofMillis(localTtlMillis);
+        this.ttl = Duration.ofMillis(ttlMillis);
+        this.localHits = lookups(meterRegistry, "local");
+        this.redisHits = lookups(meterRegistry, "redis");
+        this.misses = lookups(meterRegistry, "miss");
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("order.cache.lookups")
+            .description("Order cache lookups by the tier that answered")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Cached order, from the local tier or Redis, or null when it is not cached
+     */
+    public TaggedOrder get(Long id) {
+        TaggedOrder local = localCache.get(id);
+        if (local != null) {
+            localHits.increment();
+            return local;
+        }
+        OrderResponse cached = redisAvailabilityService.execute(
+            () -> redisTemplate.opsForValue().get(ORDER_CACHE_PREFIX + id),
+            () -> null);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        redisHits.increment();
+        TaggedOrder tagged = new TaggedOrder(cached, etag(cached));
+        localCache.put(id, tagged, localTtl);
+        return tagged;
+    }
+
+    /**
+     * Tag an order read from the database, caching it in both tiers if its status is final
+     */
+    public TaggedOrder put(OrderResponse order) {
+        TaggedOrder tagged = new TaggedOrder(order, etag(order));
+        if (FINAL_STATUSES.contains(order.getStatus())) {
+            localCache.put(order.getId(), tagged, localTtl);
+            redisAvailabilityService.run(() -> redisTemplate.opsForValue().set(ORDER_CACHE_PREFIX + order.getId(), order, ttl));
+            log.debug("Cached order {} in status {}", order.getId(), order.getStatus());
+        }
+        return tagged;
+    }
+
+    /**
+     * Cache an order that was just completed once the current transaction commits, so a rolled
+     * back order is never served. Quantity and timestamps get the precision of their columns,
+     * making the cached copy identical to the order read back from the database.
+     */
+    public void putAfterCommit(OrderResponse order) {
+        OrderResponse stored = asStored(order);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(stored);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(stored);
+            }
+        });
+    }
+
+    private String etag(OrderResponse order) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(order));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to compute ETag for order " + order.getId(), e);
+        }
+    }
+
+    private static OrderResponse asStored(OrderResponse order) {
+        OrderResponse stored = new OrderResponse();
+        stored.setId(order.getId());
+        stored.setAccountId(order.getAccountId());
+        stored.setSymbol(order.getSymbol());
+        stored.setSide(order.getSide());
+        stored.setQuantity(order.getQuantity() != null
+            ? order.getQuantity().setScale(FixedPoint.SCALE, RoundingMode.HALF_UP)
+            : null);
+        stored.setStatus(order.getStatus());
+        // The database keeps microseconds, rounding half up like the JDBC driver
+        stored.setCreatedAt(order.getCreatedAt() != null
+            ? order.getCreatedAt().plusNanos(500).truncatedTo(ChronoUnit.MICROS)
+            : null);
+        ExecutionResponse execution = order.getExecution();
+        if (execution != null) {
+            ExecutionResponse storedExecution = new ExecutionResponse();
+            storedExecution.setId(execution.getId());
+            storedExecution.setOrderId(execution.getOrderId());
+            storedExecution.setPrice(execution.getPrice());
+            storedExecution.setExecutedAt(execution.getExecutedAt() != null
+                ? execution.getExecutedAt().plusNanos(500).truncatedTo(ChronoUnit.MICROS)
+                : null);
+            stored.setExecution(storedExecution);
+        }
+        return stored;
+    }
+}
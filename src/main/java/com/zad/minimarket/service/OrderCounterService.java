@@ -0,0 +1,136 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.entity.Order;
+import com.zad.minimarket.entity.OrderStatus;
+import com.zad.minimarket.repository.OrderCounterRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Order counts by status, per account and for all accounts, kept up to date as orders are
+ * created and change status so totals are read without counting orders.
+ * <p>
+ * Changes are summed per transaction and written just before it commits, so a rolled back order
+ * is never counted and counter rows are only locked for the commit rather than the whole order.
+ * Rows are always updated in the same order, accounts first, so concurrent commits cannot deadlock.
+ */
+@Slf4j
+@Service
+public class OrderCounterService {
+
+    /**
+     * Account ID of the all-account counters; order account IDs are never blank
+     */
+    static final String ALL_ACCOUNTS = "";
+
+    static final int STRIPES = 16;
+
+    private final OrderCounterRepository orderCounterRepository;
+
+    public OrderCounterService(OrderCounterRepository orderCounterRepository) {
+        this.orderCounterRepository = orderCounterRepository;
+    }
+
+    /**
+     * Count a new order in its initial status
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Order order) {
+        pendingChanges().add(order.getAccountId(), order.getStatus(), 1);
+    }
+
+    /**
+     * Move an order from its previous status to its current one
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChange(Order order, OrderStatus previous) {
+        if (previous == order.getStatus()) {
+            return;
+        }
+        PendingChanges changes = pendingChanges();
+        changes.add(order.getAccountId(), previous, -1);
+        changes.add(order.getAccountId(), order.getStatus(), 1);
+    }
+
+    /**
+     * Order counts by status for an account, or for all accounts when the account ID is null
+     */
+    @Transactional(readOnly = true)
+    public Map<OrderStatus, Long> getCounts(String accountId) {
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : orderCounterRepository.sumByStatus(accountId != null ? accountId : ALL_ACCOUNTS)) {
+            counts.put(OrderStatus.valueOf((String) row[0]), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /**
+     * Number of orders of an account, or of all accounts when the account ID is null
+     */
+    @Transactional(readOnly = true)
+    public long getTotal(String accountId) {
+        return getCounts(accountId).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private PendingChanges pendingChanges() {
+        PendingChanges changes = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            changes = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(changes);
+        }
+        return changes;
+    }
+
+    private record CounterKey(String accountId, OrderStatus status) {
+    }
+
+    /**
+     * Counter changes of the current transaction
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private final Map<CounterKey, Long> deltas = new TreeMap<>(
+            Comparator.comparing(CounterKey::accountId).thenComparing(CounterKey::status));
+
+        void add(String accountId, OrderStatus status, long delta) {
+            deltas.merge(new CounterKey(accountId, status), delta, Long::sum);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            Map<OrderStatus, Long> totals = new EnumMap<>(OrderStatus.class);
+            deltas.forEach((key, delta) -> {
+                if (delta != 0) {
+                    orderCounterRepository.add(key.accountId(), key.status().name(), 0, delta);
+                    totals.merge(key.status(), delta, Long::sum);
+                }
+            });
+            int stripe = ThreadLocalRandom.current().nextInt(STRIPES);
+            totals.forEach((status, delta) -> {
+                if (delta != 0) {
+                    orderCounterRepository.add(ALL_ACCOUNTS, status.name(), stripe, delta);
+                }
+            });
+            log.debug("Applied order counter changes: {}", deltas);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(OrderCounterService.this);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.zad.minimarket.service;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.zad.minimarket.dto.ExecutionResponse;
+import com.zad.minimarket.dto.OrderResponse;
+import com.zad.minimarket.entity.OrderSide;
+import com.zad.minimarket.entity.OrderStatus;
+import com.zad.minimarket.util.FixedPoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streams an account's order history straight from a forward-only JDBC cursor. Rows are
+ * fetched {@code app.order-export.fetch-size} at a time inside a read-only transaction, since
+ * PostgreSQL only uses a cursor with autocommit off, and each row is written as it is read, so
+ * memory stays flat however many orders are exported.
+ */
+@Slf4j
+@Service
+public class OrderExportService {
+
+    static final String EXPORT_SQL = """
+        SELECT
+            o.id as orderId,
+            o.account_id as accountId,
+            o.symbol as symbol,
+            o.side as side,
+            o.quantity as quantity,
+            o.status as status,
+            o.created_at as createdAt,
+            e.id as executionId,
+            e.price as price,
+            e.executed_at as executedAt
+        FROM orders o
+        LEFT JOIN executions e ON o.id = e.order_id
+        WHERE o.account_id = ?
+          AND o.created_at >= ?
+          AND o.created_at < ?
+        ORDER BY o.created_at, o.id
+        """;
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String CSV_HEADER =
+        "id,accountId,symbol,side,quantity,status,createdAt,executionId,price,executedAt\n";
+
+    /**
+     * Export file formats
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    /**
+     * Exports keep fractional seconds, which the API's timestamp format drops, so rows can be
+     * reconciled exactly and both formats agree
+     */
+    private abstract static class FullPrecisionOrder {
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        private LocalDateTime createdAt;
+    }
+
+    private abstract static class FullPrecisionExecution {
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        private LocalDateTime executedAt;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectWriter orderWriter;
+    private final int fetchSize;
+    private final Counter exportedRows;
+
+    public OrderExportService(JdbcTemplate jdbcTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.order-export.fetch-size:500}") int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        // Lines are separated explicitly and flushing is left to the buffers, not done after every order
+        this.orderWriter = objectMapper.copy()
+            .addMixIn(OrderResponse.class, FullPrecisionOrder.class)
+            .addMixIn(ExecutionResponse.class, FullPrecisionExecution.class)
+            .writerFor(OrderResponse.class)
+            .withRootValueSeparator("")
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = fetchSize;
+        this.exportedRows = Counter.builder("orders.export.rows")
+            .description("Orders written by history exports")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Write the account's orders created in {@code [from, to)}, oldest first. Either bound may
+     * be null. Returns the number of orders written.
+     */
+    @Transactional(readOnly = true)
+    public long export(String accountId, LocalDateTime from, LocalDateTime to, Format format, OutputStream out)
+            throws IOException {
+        log.debug("Exporting orders for account: {}, from: {}, to: {}, format: {}", accountId, from, to, format);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+        JsonGenerator generator = format == Format.NDJSON
+            ? orderWriter.createGenerator(writer).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            : null;
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        OrderResponse order = new OrderResponse();
+        ExecutionResponse execution = new ExecutionResponse();
+        long[] rows = new long[1];
+        RowCallbackHandler writeRow = resultSet -> {
+            readRow(resultSet, order, execution);
+            try {
+                if (generator != null) {
+                    orderWriter.writeValue(generator, order);
+                    generator.writeRaw('\n');
+                } else {
+                    writeCsvRow(writer, order);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows[0]++;
+        };
+
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setString(1, accountId);
+                statement.setTimestamp(2, Timestamp.valueOf(from != null ? from : EARLIEST));
+                statement.setTimestamp(3, Timestamp.valueOf(to != null ? to : LATEST));
+                return statement;
+            }, writeRow);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            exportedRows.increment(rows[0]);
+        }
+
+        if (generator != null) {
+            generator.flush();
+        }
+        writer.flush();
+        log.debug("Exported {} orders for account: {}", rows[0], accountId);
+        return rows[0];
+    }
+
+    /**
+     * Read the current row into the reused order, keeping the execution only when there is one
+     */
+    private static void readRow(ResultSet resultSet, OrderResponse order, ExecutionResponse execution)
+            throws SQLException {
+        order.setId(resultSet.getLong("orderId"));
+        order.setAccountId(resultSet.getString("accountId"));
+        order.setSymbol(resultSet.getString("symbol"));
+        order.setSide(OrderSide.valueOf(resultSet.getString("side")));
+        order.setQuantity(resultSet.getBigDecimal("quantity"));
+        order.setStatus(OrderStatus.valueOf(resultSet.getString("status")));
+        order.setCreatedAt(resultSet.getObject("createdAt", LocalDateTime.class));
+
+        long executionId = resultSet.getLong("executionId");
+        if (resultSet.wasNull()) {
+            order.setExecution(null);
+            return;
+        }
+        execution.setId(executionId);
+        execution.setOrderId(order.getId());
+        execution.setPrice(FixedPoint.fromBigDecimal(resultSet.getBigDecimal("price")));
+        execution.setExecutedAt(resultSet.getObject("executedAt", LocalDateTime.class));
+        order.setExecution(execution);
+    }
+
+    private static void writeCsvRow(Writer writer, OrderResponse order) throws IOException {
+        ExecutionResponse execution = order.getExecution();
+        writer.write(String.valueOf(order.getId()));
+        writer.write(',');
+        writeCsvField(writer, order.getAccountId());
+        writer.write(',');
+        writeCsvField(writer, order.getSymbol());
+        writer.write(',');
+        writer.write(order.getSide().name());
+        writer.write(',');
+        writer.write(order.getQuantity().toPlainString());
+        writer.write(',');
+        writer.write(order.getStatus().name());
+        writer.write(',');
+        writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(order.getCreatedAt()));
+        writer.write(',');
+        if (execution != null) {
+            writer.write(String.valueOf(execution.getId()));
+            writer.write(',');
+            writer.write(FixedPoint.toString(execution.getPrice()));
+            writer.write(',');
+            writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(execution.getExecutedAt()));
+        } else {
+            writer.write(",,");
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Write a field, quoted when it contains a separator, quote or line break
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
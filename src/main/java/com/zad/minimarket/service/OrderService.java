@@ -7,27 +7,36 @@ import com.zad.minimarket.exception.OrderNotFoundException;
 import com.zad.minimarket.exception.PriceFeedException;
 import com.zad.minimarket.mapper.OrderMapper;
 import com.zad.minimarket.repository.OrderRepository;
+import com.zad.minimarket.util.FixedPoint;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
 @Transactional
 public class OrderService {
 
+    public static final int MAX_CURSOR_PAGE_SIZE = 500;
+
     private final OrderRepository orderRepository;
     private final ExecutionService executionService;
     private final PriceFeedService priceFeedService;
     private final RateLimitingService rateLimitingService;
     private final OrderMapper orderMapper;
+    private final OrderCounterService orderCounterService;
+    private final OrderCacheService orderCacheService;
     private final Counter orderCounter;
 
     public OrderService(OrderRepository orderRepository,
@@ -35,12 +44,16 @@ public class OrderService {
                         PriceFeedService priceFeedService,
                         RateLimitingService rateLimitingService,
                         OrderMapper orderMapper,
+                        OrderCounterService orderCounterService,
+                        OrderCacheService orderCacheService,
                         MeterRegistry meterRegistry) {
         this.orderRepository = orderRepository;
         this.executionService = executionService;
         this.priceFeedService = priceFeedService;
         this.rateLimitingService = rateLimitingService;
         this.orderMapper = orderMapper;
+        this.orderCounterService = orderCounterService;
+        this.orderCacheService = orderCacheService;
         this.orderCounter = Counter.builder("orders.created")
             .description("Total number of orders created")
             .register(meterRegistry);
@@ -54,13 +67,14 @@ public class OrderService {
             request.getAccountId(), request.getSymbol(), request.getSide(), request.getQuantity());
 
         // Check rate limit
-        rateLimitingService.checkRateLimit(request.getAccountId());
+        rateLimitingService.checkRateLimit(request.getAccountId(), request.getSymbol());
 
         // Create order entity
         Order order = orderMapper.toOrder(request);
 
         // Save order first to get an ID
         order = orderRepository.save(order);
+        orderCounterService.recordCreated(order);
         log.debug("Order saved with ID: {}", order.getId());
 
         try {
@@ -69,34 +83,41 @@ public class OrderService {
 
             // Create and save execution
             ExecutionResponse executionResponse = executionService.saveExecution(order.getId(),
-                priceResponse.getPrice().setScale(6, RoundingMode.HALF_UP));
+                priceResponse.getPrice());
 
             // Update order status to EXECUTED
             order.setStatus(OrderStatus.EXECUTED);
             order = orderRepository.save(order);
+            orderCounterService.recordStatusChange(order, OrderStatus.PENDING);
 
             log.info("Order {} executed successfully at price: {}",
-                order.getId(), priceResponse.getPrice());
+                order.getId(), FixedPoint.toString(priceResponse.getPrice()));
 
             // Increment order counter metric
             orderCounter.increment();
 
-            return orderMapper.toOrderResponse(order, executionResponse);
+            OrderResponse response = orderMapper.toOrderResponse(order, executionResponse);
+            orderCacheService.putAfterCommit(response);
+            return response;
 
         } catch (PriceFeedException e) {
             log.error("Failed to get price for symbol {}: {}", request.getSymbol(), e.getMessage());
 
             // Update order status to failed
+            OrderStatus previous = order.getStatus();
             order.setStatus(OrderStatus.FAILED);
             orderRepository.save(order);
+            orderCounterService.recordStatusChange(order, previous);
 
             throw e;
         } catch (Exception e) {
             log.error("Unexpected error creating order: {}", e.getMessage(), e);
 
             // Update order status to failed
+            OrderStatus previous = order.getStatus();
             order.setStatus(OrderStatus.FAILED);
             orderRepository.save(order);
+            orderCounterService.recordStatusChange(order, previous);
 
             throw new RuntimeException("Failed to create order", e);
         }
@@ -106,42 +127,117 @@ public class OrderService {
     /**
      * Get order by ID
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public OrderResponse getOrderById(Long id) {
+        return getTaggedOrderById(id).order();
+    }
+
+    /**
+     * Get order by ID with its ETag. Orders in a final status are served from the order cache
+     * without touching the database.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public OrderCacheService.TaggedOrder getTaggedOrderById(Long id) {
         log.debug("Getting order by ID: {}", id);
 
+        OrderCacheService.TaggedOrder cached = orderCacheService.get(id);
+        if (cached != null) {
+            return cached;
+        }
         return orderRepository.findOrderWithExecutionNative(id)
             .map(orderMapper::projectionToOrderResponse)
+            .map(orderCacheService::put)
             .orElseThrow(() -> new OrderNotFoundException("Order not found with ID: " + id));
     }
 
     /**
-     * Get orders for account
+     * Get orders for account. The total comes from the order counters, not a count query.
      */
     @Transactional(readOnly = true)
     public Page<OrderResponse> getOrdersByAccount(String accountId, Pageable pageable) {
         log.debug("Getting paginated orders for account: {}, pageable: {}", accountId, pageable);
 
-        Page<OrderExecutionProjection> projections = orderRepository.findOrderWithExecutionByAccountId(accountId, pageable);
+        Slice<OrderResponse> slice = getOrderSliceByAccount(accountId, pageable);
+        return new PageImpl<>(slice.getContent(), pageable, orderCounterService.getTotal(accountId));
+    }
+
+    /**
+     * Get orders for account without a total
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderResponse> getOrderSliceByAccount(String accountId, Pageable pageable) {
+        log.debug("Getting order slice for account: {}, pageable: {}", accountId, pageable);
+
+        Slice<OrderExecutionProjection> projections = orderRepository.findOrderWithExecutionByAccountId(accountId, pageable);
         return projections.map(orderMapper::projectionToOrderResponse);
     }
 
     /**
-     * Get all orders
+     * Get all orders. The total comes from the order counters, not a count query.
      */
     @Transactional(readOnly = true)
     public Page<OrderResponse> getAllOrders(Pageable pageable) {
         log.debug("Getting all orders with pageable: {}", pageable);
 
-        Page<OrderExecutionProjection> projections = orderRepository.findOrdersWithExecution(pageable);
+        Slice<OrderResponse> slice = getAllOrdersSlice(pageable);
+        return new PageImpl<>(slice.getContent(), pageable, orderCounterService.getTotal(null));
+    }
+
+    /**
+     * Get all orders without a total
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderResponse> getAllOrdersSlice(Pageable pageable) {
+        log.debug("Getting order slice with pageable: {}", pageable);
+
+        Slice<OrderExecutionProjection> projections = orderRepository.findOrdersWithExecution(pageable);
         return projections.map(orderMapper::projectionToOrderResponse);
     }
 
+    /**
+     * Get a keyset page of orders, newest first, optionally for one account. Without a cursor
+     * the newest orders are returned; otherwise the orders after the cursor position.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> getOrdersAfter(String accountId, String cursor, int size) {
+        log.debug("Getting orders for account: {}, cursor: {}, size: {}", accountId, cursor, size);
+
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        OrderCursor position = cursor != null ? OrderCursor.decode(cursor) : null;
+        // One extra row tells whether another page follows, without a count query
+        int limit = size + 1;
+        List<OrderExecutionProjection> rows;
+        if (accountId != null) {
+            rows = position == null
+                ? orderRepository.findFirstOrdersWithExecutionByAccountId(accountId, limit)
+                : orderRepository.findOrdersWithExecutionByAccountIdBefore(accountId, position.createdAt(),
+                    position.id(), limit);
+        } else {
+            rows = position == null
+                ? orderRepository.findFirstOrdersWithExecution(limit)
+                : orderRepository.findOrdersWithExecutionBefore(position.createdAt(), position.id(), limit);
+        }
+
+        List<OrderExecutionProjection> page = rows.size() > size ? rows.subList(0, size) : rows;
+        String nextCursor = rows.size() > size ? OrderCursor.of(page.get(size - 1)).encode() : null;
+        return new CursorPage<>(page.stream().map(orderMapper::projectionToOrderResponse).toList(), nextCursor);
+    }
+
     /**
      * Get order count for account
      */
     @Transactional(readOnly = true)
     public long getOrderCountByAccount(String accountId) {
-        return orderRepository.countByAccountId(accountId);
+        return orderCounterService.getTotal(accountId);
+    }
+
+    /**
+     * Get order counts by status for an account, or for all accounts when the account ID is null
+     */
+    @Transactional(readOnly = true)
+    public Map<OrderStatus, Long> getOrderCounts(String accountId) {
+        return orderCounterService.getCounts(accountId);
     }
 }
@@ -0,0 +1,152 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.util.IdleExpiringCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Chooses the price cache TTL per symbol from its observed request rate and price volatility.
+ * <p>
+ * The TTL is the time the symbol's recent price speed needs to move by {@code max-drift-bps},
+ * clamped to {@code [min-ttl, max-ttl]}. Symbols requested too rarely for a cached price to be
+ * read at least {@code min-expected-hits} times are not cached. Until enough has been observed
+ * the default TTL is used.
+ * <p>
+ * A symbol is only tracked once a price has been fetched for it, so unknown symbols from
+ * clients never allocate state. At most {@code max-symbols} are tracked, and symbols not seen
+ * for {@code stats-idle-timeout} are dropped. The TTLs handed out are published as the
+ * {@code price.cache.ttl} distribution, without a per-symbol tag.
+ */
+@Slf4j
+@Service
+public class PriceCacheTtlService implements PriceTickListener {
+
+    private static final double SMOOTHING = 0.3;
+
+    private final long defaultTtlMillis;
+    private final long minTtlMillis;
+    private final long maxTtlMillis;
+    private final double maxDrift;
+    private final double minExpectedHits;
+    private final LongSupplier clock;
+    private final IdleExpiringCache<String, SymbolStats> stats;
+    private final DistributionSummary ttlSummary;
+
+    @Autowired
+    public PriceCacheTtlService(@Value("${app.price-feed.cache.ttl:3000}") long defaultTtlMillis,
+                                @Value("${app.price-feed.cache.min-ttl:500}") long minTtlMillis,
+                                @Value("${app.price-feed.cache.max-ttl:30000}") long maxTtlMillis,
+                                @Value("${app.price-feed.cache.max-drift-bps:5}") double maxDriftBps,
+                                @Value("${app.price-feed.cache.min-expected-hits:1.0}") double minExpectedHits,
+                                @Value("${app.price-feed.cache.max-symbols:10000}") int maxSymbols,
+                                @Value("${app.price-feed.cache.stats-idle-timeout:600000}") long statsIdleTimeoutMillis,
+                                MeterRegistry meterRegistry) {
+        this(defaultTtlMillis, minTtlMillis, maxTtlMillis, maxDriftBps, minExpectedHits, maxSymbols,
+            statsIdleTimeoutMillis, meterRegistry, System::currentTimeMillis);
+    }
+
+    PriceCacheTtlService(long defaultTtlMillis, long minTtlMillis, long maxTtlMillis, double maxDriftBps,
+                         double minExpectedHits, int maxSymbols, long statsIdleTimeoutMillis,
+                         MeterRegistry meterRegistry, LongSupplier clock) {
+        if (minTtlMillis <= 0 || maxTtlMillis < minTtlMillis || maxDriftBps <= 0) {
+            throw new IllegalArgumentException("Invalid price cache TTL bounds");
+        }
+        this.defaultTtlMillis = Math.max(minTtlMillis, Math.min(maxTtlMillis, defaultTtlMillis));
+        this.minTtlMillis = minTtlMillis;
+        this.maxTtlMillis = maxTtlMillis;
+        this.maxDrift = maxDriftBps / 10_000;
+        this.minExpectedHits = minExpectedHits;
+        this.clock = clock;
+        this.stats = new IdleExpiringCache<>(maxSymbols, statsIdleTimeoutMillis, cause -> { }, clock);
+        this.ttlSummary = DistributionSummary.builder("price.cache.ttl")
+            .description("Price cache TTL applied to fetched prices")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Record a price request for a symbol, whether or not it is served from cache. Requests for
+     * symbols that have not been fetched yet are not tracked.
+     */
+    public void recordRequest(String symbol) {
+        SymbolStats symbolStats = stats.getIfPresent(symbol);
+        if (symbolStats != null) {
+            symbolStats.recordRequest(clock.getAsLong());
+        }
+    }
+
+    /**
+     * TTL to cache a freshly fetched price for, or {@link Duration#ZERO} if it should not be cached
+     */
+    public Duration getTtl(String symbol) {
+        SymbolStats symbolStats = stats.getIfPresent(symbol);
+        long ttl = symbolStats != null ? symbolStats.ttlMillis : defaultTtlMillis;
+        ttlSummary.record(ttl / 1000.0);
+        return Duration.ofMillis(ttl);
+    }
+
+    /**
+     * Update the symbol's price speed from a fetched tick, starting to track the symbol
+     */
+    @Override
+    public void onTick(String symbol, long timestampMillis, long price) {
+        stats.computeIfAbsent(symbol, s -> new SymbolStats()).recordTick(timestampMillis, price);
+    }
+
+    private class SymbolStats {
+
+        private long lastRequest = -1;
+        private double requestInterval = -1;
+        private long lastTickTime = -1;
+        private long lastPrice;
+        private double driftPerSecond = -1;
+        private volatile long ttlMillis = defaultTtlMillis;
+
+        synchronized void recordRequest(long now) {
+            if (lastRequest >= 0) {
+                double interval = Math.max(1, now - lastRequest);
+                requestInterval = requestInterval < 0 ? interval : smooth(requestInterval, interval);
+                updateTtl();
+            }
+            lastRequest = now;
+        }
+
+        synchronized void recordTick(long timestamp, long price) {
+            if (lastTickTime >= 0 && lastPrice != 0 && timestamp >= lastTickTime) {
+                double seconds = Math.max(1, timestamp - lastTickTime) / 1000.0;
+                double drift = Math.abs((double) (price - lastPrice) / lastPrice) / seconds;
+                driftPerSecond = driftPerSecond < 0 ? drift : smooth(driftPerSecond, drift);
+                updateTtl();
+            }
+            lastTickTime = timestamp;
+            lastPrice = price;
+        }
+
+        private void updateTtl() {
+            long ttl = defaultTtlMillis;
+            if (driftPerSecond == 0) {
+                ttl = maxTtlMillis;
+            } else if (driftPerSecond > 0) {
+                ttl = (long) Math.max(minTtlMillis, Math.min(maxTtlMillis, maxDrift / driftPerSecond * 1000));
+            }
+            if (requestInterval > 0 && ttl / requestInterval < minExpectedHits) {
+                ttl = 0;
+            }
+            if (ttl != ttlMillis) {
+                log.debug("Price cache TTL changed to {}ms", ttl);
+                ttlMillis = ttl;
+            }
+        }
+
+        private double smooth(double average, double sample) {
+            return average + SMOOTHING * (sample - average);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceResponse;
+
+/**
+ * Source of current prices behind {@link PriceFeedService}, selected by {@code app.price-feed.mode}
+ */
+public interface PriceFeedClient {
+
+    /**
+     * Fetch the current price for a symbol
+     */
+    PriceResponse fetchPrice(String symbol);
+}
@@ -0,0 +1,160 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Elects one node per cluster through a Redis lease to poll the price feed for the active
+ * symbol set and broadcast the prices through {@link ClusterPriceTable}.
+ * <p>
+ * The leader renews its lease on every poll. If it stops, the lease expires after
+ * {@code lease-ttl} and the next node to poll takes over.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.price-feed.cluster.enabled", havingValue = "true")
+public class PriceFeedLeaderPoller {
+
+    static final String LEASE_KEY = "price-feed:leader";
+
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+        Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+
+    private final PriceFeedService priceFeedService;
+    private final ClusterPriceTable clusterPriceTable;
+    private final StringRedisTemplate redisTemplate;
+    private final long pollIntervalMillis;
+    private final long leaseTtlMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("price-feed-poller").daemon().factory());
+    private final ExecutorService fetchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter publishedCounter;
+    private volatile boolean leader;
+
+    public PriceFeedLeaderPoller(PriceFeedService priceFeedService,
+                                 ClusterPriceTable clusterPriceTable,
+                                 StringRedisTemplate redisTemplate,
+                                 @Value("${app.price-feed.cluster.poll-interval:1000}") long pollIntervalMillis,
+                                 @Value("${app.price-feed.cluster.lease-ttl:3000}") long leaseTtlMillis,
+                                 MeterRegistry meterRegistry) {
+        if (leaseTtlMillis <= pollIntervalMillis) {
+            throw new IllegalArgumentException("Leader lease TTL must be longer than the poll interval");
+        }
+        this.priceFeedService = priceFeedService;
+        this.clusterPriceTable = clusterPriceTable;
+        this.redisTemplate = redisTemplate;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.leaseTtlMillis = leaseTtlMillis;
+        this.publishedCounter = Counter.builder("price.feed.cluster.published")
+            .description("Prices broadcast by this node as price feed leader")
+            .register(meterRegistry);
+        Gauge.builder("price.feed.cluster.leader", this, p -> p.leader ? 1 : 0)
+            .description("Whether this node is the price feed leader")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::poll, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        fetchExecutor.shutdownNow();
+        if (leader) {
+            leader = false;
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_KEY), clusterPriceTable.getNodeId());
+                log.info("Released price feed leadership");
+            } catch (RuntimeException e) {
+                log.warn("Failed to release price feed leadership: {}", e.getMessage());
+            }
+        }
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    void poll() {
+        try {
+            if (holdLease()) {
+                publishActivePrices();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Price feed poll failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean holdLease() {
+        String nodeId = clusterPriceTable.getNodeId();
+        boolean held;
+        if (leader) {
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(LEASE_KEY), nodeId, String.valueOf(leaseTtlMillis));
+            held = renewed != null && renewed == 1;
+        } else {
+            held = Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(LEASE_KEY, nodeId, Duration.ofMillis(leaseTtlMillis)));
+        }
+        if (held != leader) {
+            log.info(held ? "Acquired price feed leadership" : "Lost price feed leadership");
+            leader = held;
+        }
+        return held;
+    }
+
+    private void publishActivePrices() {
+        // Published under the symbol asked for, the key in the active set, whatever the feed echoes back
+        List<String> symbols = new ArrayList<>(clusterPriceTable.getActiveSymbols());
+        List<Future<PriceResponse>> fetches = new ArrayList<>(symbols.size());
+        for (String symbol : symbols) {
+            fetches.add(fetchExecutor.submit(() -> priceFeedService.fetchPriceOnce(symbol)));
+        }
+
+        // Stop waiting well before the lease could expire so two leaders never publish at once
+        long timestamp = System.currentTimeMillis();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseTtlMillis / 2);
+        for (int i = 0; i < fetches.size(); i++) {
+            Future<PriceResponse> fetch = fetches.get(i);
+            try {
+                PriceResponse price = fetch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                clusterPriceTable.publish(symbols.get(i), timestamp, price.getPrice());
+                publishedCounter.increment();
+            } catch (ExecutionException e) {
+                log.debug("Skipping broadcast of failed price fetch: {}", e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                fetch.cancel(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
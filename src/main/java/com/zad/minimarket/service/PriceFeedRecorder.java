@@ -0,0 +1,64 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.codec.PriceRecordingWriter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records every price fetched from the feed into a binary recording that can be replayed
+ * with {@code app.price-feed.mode: replay}. A new file is started on every application start.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.price-feed.record.enabled", havingValue = "true")
+public class PriceFeedRecorder implements PriceTickListener {
+
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    private final Path file;
+    private final PriceRecordingWriter writer;
+    private volatile boolean failed;
+    private volatile long lastFlush = System.currentTimeMillis();
+
+    public PriceFeedRecorder(@Value("${app.price-feed.record.directory:recordings}") Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long start = System.currentTimeMillis();
+        this.file = directory.resolve("price-feed-" + start + ".bin");
+        this.writer = new PriceRecordingWriter(Files.newOutputStream(file), start);
+        log.info("Recording price feed to {}", file);
+    }
+
+    @Override
+    public void onTick(String symbol, long timestampMillis, long price) {
+        if (failed) {
+            return;
+        }
+        try {
+            writer.write(symbol, timestampMillis, price);
+            if (timestampMillis - lastFlush >= FLUSH_INTERVAL_MILLIS) {
+                lastFlush = timestampMillis;
+                writer.flush();
+            }
+        } catch (IOException e) {
+            failed = true;
+            log.error("Failed to write price recording {}, recording stopped: {}", file, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            writer.close();
+            log.info("Closed price recording {}", file);
+        } catch (IOException e) {
+            log.warn("Failed to close price recording {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.zad.minimarket.service;
 
+import com.zad.minimarket.config.PriceFeedFallback;
 import com.zad.minimarket.dto.PriceResponse;
-import com.zad.minimarket.exception.PriceFeedException;
-import lombok.RequiredArgsConstructor;
+import com.zad.minimarket.exception.PriceFeedUnavailableException;
+import com.zad.minimarket.util.FixedPoint;
+import com.zad.minimarket.util.HedgedExecutor;
+import com.zad.minimarket.util.IdleExpiringCache;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Recover;
 import org.springframework.retry.annotation.Retryable;
@@ -14,29 +17,63 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class PriceFeedService {
 
-    private final RestTemplate restTemplate;
+    private final PriceFeedClient priceFeedClient;
     private final CacheService cacheService;
+    private final PriceCacheTtlService priceCacheTtlService;
+    private final CircuitBreaker priceFeedCircuitBreaker;
+    private final List<PriceTickListener> priceTickListeners;
+    private final HedgedExecutor priceFeedHedgedExecutor;
+    private final Optional<ClusterPriceTable> clusterPriceTable;
     private final Random random = new Random();
-
-    @Value("${app.price-feed.base-url}")
-    private String priceFeedBaseUrl;
+    private final IdleExpiringCache<String, PriceResponse> lastKnownPrices;
+
+    @Value("${app.price-feed.circuit-breaker.fallback:CACHED}")
+    private PriceFeedFallback fallback = PriceFeedFallback.CACHED;
+
+    public PriceFeedService(PriceFeedClient priceFeedClient,
+                            CacheService cacheService,
+                            PriceCacheTtlService priceCacheTtlService,
+                            CircuitBreaker priceFeedCircuitBreaker,
+                            List<PriceTickListener> priceTickListeners,
+                            HedgedExecutor priceFeedHedgedExecutor,
+                            Optional<ClusterPriceTable> clusterPriceTable,
+                            @Value("${app.price-feed.last-known.max-symbols:10000}") int lastKnownMaxSymbols,
+                            @Value("${app.price-feed.last-known.idle-timeout:3600000}") long lastKnownIdleTimeoutMillis) {
+        this.priceFeedClient = priceFeedClient;
+        this.cacheService = cacheService;
+        this.priceCacheTtlService = priceCacheTtlService;
+        this.priceFeedCircuitBreaker = priceFeedCircuitBreaker;
+        this.priceTickListeners = priceTickListeners;
+        this.priceFeedHedgedExecutor = priceFeedHedgedExecutor;
+        this.clusterPriceTable = clusterPriceTable;
+        // Symbols come from requests, so only the most recently fetched ones keep a fallback price
+        this.lastKnownPrices = new IdleExpiringCache<>(lastKnownMaxSymbols, lastKnownIdleTimeoutMillis, cause -> { });
+    }
 
     /**
      * Get current price for a symbol with retry logic and caching
      */
     public PriceResponse getCurrentPrice(String symbol) {
         log.debug("Getting price for symbol: {}", symbol);
+        priceCacheTtlService.recordRequest(symbol);
+
+        if (clusterPriceTable.isPresent()) {
+            PriceResponse clusterPrice = clusterPriceTable.get().getPrice(symbol);
+            if (clusterPrice != null) {
+                log.debug("Returning cluster broadcast price for symbol: {}", symbol);
+                return clusterPrice;
+            }
+        }
 
         PriceResponse cachedPrice = cacheService.getCachedPriceFromRedis(symbol);
         if (cachedPrice != null) {
@@ -44,10 +81,19 @@ public class PriceFeedService {
             return cachedPrice;
         }
 
-        PriceResponse price = fetchPriceWithRetry(symbol);
+        PriceResponse price;
+        try {
+            price = fetchPriceWithRetry(symbol);
+        } catch (CallNotPermittedException e) {
+            return fallbackPrice(symbol);
+        }
+        // Only symbols the feed answered for are polled by the cluster leader
+        clusterPriceTable.ifPresent(table -> table.markActive(symbol));
 
-        // Cache the price for 3 seconds
-        cacheService.cachePrice(symbol, price, java.time.Duration.ofSeconds(3));
+        Duration ttl = priceCacheTtlService.getTtl(symbol);
+        if (!ttl.isZero()) {
+            cacheService.cachePrice(symbol, price, ttl);
+        }
 
         return price;
     }
@@ -57,7 +103,7 @@ public class PriceFeedService {
      */
     @Retryable(
         retryFor = {HttpServerErrorException.class, ResourceAccessException.class},
-        noRetryFor = {HttpClientErrorException.class},
+        noRetryFor = {HttpClientErrorException.class, CallNotPermittedException.class},
         maxAttemptsExpression = "${app.price-feed.retry.max-attempts:4}",
         backoff = @Backoff(
             delayExpression = "${app.price-feed.retry.initial-delay:1000}",
@@ -67,7 +113,17 @@ public class PriceFeedService {
     )
     public PriceResponse fetchPriceWithRetry(String symbol) {
         log.debug("Attempting to fetch price for symbol: {}", symbol);
-        return fetchPrice(symbol);
+        return fetchPriceOnce(symbol);
+    }
+
+    /**
+     * Fetch price through the circuit breaker and hedging, without retries or fallbacks
+     */
+    public PriceResponse fetchPriceOnce(String symbol) {
+        PriceResponse price = priceFeedCircuitBreaker.executeSupplier(
+            () -> priceFeedHedgedExecutor.execute(() -> priceFeedClient.fetchPrice(symbol)));
+        // Published outside the hedged call so only the winning answer reaches the listeners
+        return publishTick(symbol, price);
     }
 
     /**
@@ -75,40 +131,58 @@ public class PriceFeedService {
      */
     @Recover
     public PriceResponse recoverFromPriceFetch(Exception ex, String symbol) {
+        if (ex instanceof CallNotPermittedException) {
+            return fallbackPrice(symbol);
+        }
         log.warn("All retry attempts failed for symbol: {}. Using mock price. Error: {}",
             symbol, ex.getMessage());
         return generateMockPrice(symbol);
     }
 
     /**
-     * Fetch price from external service
+     * Remember a fetched price and notify the tick listeners
      */
-    private PriceResponse fetchPrice(String symbol) {
-        String url = priceFeedBaseUrl + "/price?symbol=" + symbol;
-        log.debug("Fetching price from: {}", url);
-
-        ResponseEntity<PriceResponse> response = restTemplate.getForEntity(url, PriceResponse.class);
-
-        if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-            log.info("Fetched price for {}: {}", symbol, response.getBody().getPrice());
-            return response.getBody();
-        } else {
-            throw new PriceFeedException("Invalid response from price feed service");
+    private PriceResponse publishTick(String symbol, PriceResponse price) {
+        log.info("Fetched price for {}: {}", symbol, FixedPoint.toString(price.getPrice()));
+        lastKnownPrices.put(symbol, price);
+        long timestamp = System.currentTimeMillis();
+        for (PriceTickListener listener : priceTickListeners) {
+            listener.onTick(symbol, timestamp, price.getPrice());
         }
+        return price;
+    }
+
+    /**
+     * Resolve a price without calling the feed while the circuit breaker is open
+     */
+    private PriceResponse fallbackPrice(String symbol) {
+        log.warn("Price feed circuit breaker is {}, applying {} fallback for symbol: {}",
+            priceFeedCircuitBreaker.getState(), fallback, symbol);
+
+        return switch (fallback) {
+            case CACHED -> {
+                PriceResponse lastKnown = lastKnownPrices.getIfPresent(symbol);
+                if (lastKnown == null) {
+                    throw new PriceFeedUnavailableException("Price feed unavailable and no last known price for symbol: " + symbol);
+                }
+                yield lastKnown;
+            }
+            case MOCK -> generateMockPrice(symbol);
+            case FAIL -> throw new PriceFeedUnavailableException("Price feed unavailable for symbol: " + symbol);
+        };
     }
 
     /**
      * Generate mock price for testing purposes
      */
     private PriceResponse generateMockPrice(String symbol) {
-        BigDecimal basePrice = getBasePriceForSymbol(symbol);
+        long basePrice = getBasePriceForSymbol(symbol);
 
         // Add some random variation (-5% to +5%)
-        double variation = (random.nextDouble() - 0.5) * 0.1;
-        BigDecimal price = basePrice.multiply(BigDecimal.valueOf(1 + variation));
-        price = price.setScale(6, RoundingMode.HALF_UP);
+        long variation = Math.round((random.nextDouble() - 0.5) * 0.1 * FixedPoint.ONE);
+        long price = FixedPoint.multiply(basePrice, FixedPoint.ONE + variation);
 
-        log.debug("Generated mock price for {}: {}", symbol, price);
+        log.debug("Generated mock price for {}: {}", symbol, FixedPoint.toString(price));
 
         PriceResponse priceResponse = new PriceResponse();
         priceResponse.setPrice(price);
@@ -116,14 +190,14 @@ public class PriceFeedService {
         return priceResponse;
     }
 
-    private BigDecimal getBasePriceForSymbol(String symbol) {
+    private long getBasePriceForSymbol(String symbol) {
         return switch (symbol.toUpperCase()) {
-            case "AAPL" -> BigDecimal.valueOf(210.55);
-            case "GOOGL" -> BigDecimal.valueOf(2800.75);
-            case "MSFT" -> BigDecimal.valueOf(415.30);
-            case "TSLA" -> BigDecimal.valueOf(245.80);
-            case "AMZN" -> BigDecimal.valueOf(3200.45);
-            default -> BigDecimal.valueOf(100.00);
+            case "AAPL" -> 210_550_000L;
+            case "GOOGL" -> 2_800_750_000L;
+            case "MSFT" -> 415_300_000L;
+            case "TSLA" -> 245_800_000L;
+            case "AMZN" -> 3_200_450_000L;
+            default -> 100_000_000L;
         };
     }
 }
@@ -0,0 +1,85 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceBarResponse;
+import com.zad.minimarket.util.IdleExpiringCache;
+import com.zad.minimarket.util.TickRingBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a bounded history of fetched price ticks per symbol and aggregates it into OHLC bars.
+ * Histories are kept for at most {@code max-symbols} symbols and dropped after
+ * {@code idle-timeout} without ticks or reads. Bars are bucketed and labelled in UTC.
+ */
+@Slf4j
+@Service
+public class PriceHistoryService implements PriceTickListener {
+
+    private final int capacity;
+    private final IdleExpiringCache<String, TickRingBuffer> histories;
+
+    public PriceHistoryService(@Value("${app.price-feed.history.capacity:1024}") int capacity,
+                               @Value("${app.price-feed.history.max-symbols:1000}") int maxSymbols,
+                               @Value("${app.price-feed.history.idle-timeout:3600000}") long idleTimeoutMillis) {
+        this.capacity = capacity;
+        this.histories = new IdleExpiringCache<>(maxSymbols, idleTimeoutMillis, cause -> { });
+    }
+
+    /**
+     * Record a price tick for a symbol
+     */
+    @Override
+    public void onTick(String symbol, long timestampMillis, long price) {
+        histories.computeIfAbsent(symbol, s -> new TickRingBuffer(capacity)).add(timestampMillis, price);
+    }
+
+    /**
+     * Aggregate recorded ticks into bars of the given interval, oldest first
+     */
+    public List<PriceBarResponse> getBars(String symbol, Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+
+        TickRingBuffer history = histories.getIfPresent(symbol);
+        if (history == null) {
+            log.debug("No price history for symbol: {}", symbol);
+            return List.of();
+        }
+
+        long intervalMillis = interval.toMillis();
+        List<PriceBarResponse> bars = new ArrayList<>();
+        long[] currentBucket = {Long.MIN_VALUE};
+        history.forEach((timestamp, price) -> {
+            long bucketStart = timestamp - Math.floorMod(timestamp, intervalMillis);
+            if (bucketStart != currentBucket[0]) {
+                currentBucket[0] = bucketStart;
+                PriceBarResponse bar = new PriceBarResponse();
+                bar.setSymbol(symbol);
+                bar.setStart(toLocalDateTime(bucketStart));
+                bar.setOpen(price);
+                bar.setHigh(price);
+                bar.setLow(price);
+                bars.add(bar);
+            }
+            PriceBarResponse bar = bars.get(bars.size() - 1);
+            bar.setHigh(Math.max(bar.getHigh(), price));
+            bar.setLow(Math.min(bar.getLow(), price));
+            bar.setClose(price);
+            bar.setTickCount(bar.getTickCount() + 1);
+        });
+        return bars;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,179 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceResponse;
+import com.zad.minimarket.util.IdleExpiringCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans fetched prices out to Server-Sent Events subscribers.
+ * <p>
+ * Prices come from the fetches {@link PriceFeedService} already makes, so subscribers never
+ * cause upstream calls. Each subscriber is written to from its own virtual thread and only
+ * keeps the latest unsent price per symbol, so a slow client skips intermediate prices
+ * instead of building up a backlog. Last known prices for new subscribers are kept for up to
+ * {@code max-tracked-symbols} symbols and dropped after {@code idle-timeout} without a tick.
+ */
+@Slf4j
+@Service
+public class PriceStreamService implements PriceTickListener {
+
+    private final long timeoutMillis;
+    private final int maxSymbols;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final IdleExpiringCache<String, Long> latestPrices;
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Set<Subscription> allSubscriptions = ConcurrentHashMap.newKeySet();
+    private final Counter sentCounter;
+    private final Counter conflatedCounter;
+
+    public PriceStreamService(@Value("${app.price-feed.stream.timeout:1800000}") long timeoutMillis,
+                              @Value("${app.price-feed.stream.max-symbols:50}") int maxSymbols,
+                              @Value("${app.price-feed.stream.max-tracked-symbols:10000}") int maxTrackedSymbols,
+                              @Value("${app.price-feed.stream.idle-timeout:600000}") long idleTimeoutMillis,
+                              MeterRegistry meterRegistry) {
+        this.timeoutMillis = timeoutMillis;
+        this.maxSymbols = maxSymbols;
+        this.latestPrices = new IdleExpiringCache<>(maxTrackedSymbols, idleTimeoutMillis, cause -> { });
+        this.sentCounter = Counter.builder("price.stream.sent")
+            .description("Price events sent to stream subscribers")
+            .register(meterRegistry);
+        this.conflatedCounter = Counter.builder("price.stream.conflated")
+            .description("Price events replaced by a newer price before a slow subscriber received them")
+            .register(meterRegistry);
+        meterRegistry.gauge("price.stream.subscribers", allSubscriptions, Set::size);
+    }
+
+    /**
+     * Open a stream of price updates for the given symbols, starting with their last known prices
+     */
+    public SseEmitter subscribe(Collection<String> symbols) {
+        return subscribe(symbols, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Collection<String> symbols, SseEmitter emitter) {
+        Set<String> symbolSet = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            if (!symbol.isBlank()) {
+                symbolSet.add(symbol.trim().toUpperCase());
+            }
+        }
+        if (symbolSet.isEmpty() || symbolSet.size() > maxSymbols) {
+            throw new IllegalArgumentException("Between 1 and " + maxSymbols + " symbols must be requested");
+        }
+
+        Subscription subscription = new Subscription(emitter, symbolSet);
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(e -> unsubscribe(subscription));
+
+        allSubscriptions.add(subscription);
+        for (String symbol : symbolSet) {
+            subscriptions.computeIfAbsent(symbol, s -> ConcurrentHashMap.newKeySet()).add(subscription);
+            Long price = latestPrices.getIfPresent(symbol);
+            if (price != null) {
+                subscription.offer(symbol, price);
+            }
+        }
+        log.debug("Price stream opened for symbols: {}", symbolSet);
+        return emitter;
+    }
+
+    @Override
+    public void onTick(String symbol, long timestampMillis, long price) {
+        String key = symbol.toUpperCase();
+        latestPrices.put(key, price);
+        Set<Subscription> subscribers = subscriptions.get(key);
+        if (subscribers != null) {
+            for (Subscription subscription : subscribers) {
+                subscription.offer(key, price);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Subscription subscription : allSubscriptions) {
+            subscription.emitter.complete();
+        }
+        executor.shutdownNow();
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        if (allSubscriptions.remove(subscription)) {
+            for (String symbol : subscription.symbols) {
+                subscriptions.computeIfPresent(symbol, (s, subscribers) -> {
+                    subscribers.remove(subscription);
+                    return subscribers.isEmpty() ? null : subscribers;
+                });
+            }
+            log.debug("Price stream closed for symbols: {}", subscription.symbols);
+        }
+    }
+
+    private class Subscription {
+
+        private final SseEmitter emitter;
+        private final Set<String> symbols;
+        private final Map<String, Long> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscription(SseEmitter emitter, Set<String> symbols) {
+            this.emitter = emitter;
+            this.symbols = symbols;
+        }
+
+        void offer(String symbol, long price) {
+            if (pending.put(symbol, price) != null) {
+                conflatedCounter.increment();
+            }
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                try {
+                    for (String symbol : pending.keySet()) {
+                        Long price = pending.remove(symbol);
+                        if (price != null) {
+                            send(symbol, price);
+                        }
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Price stream subscriber gone: {}", e.getMessage());
+                    pending.clear();
+                    unsubscribe(this);
+                    return;
+                } finally {
+                    draining.set(false);
+                }
+            } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void send(String symbol, long price) throws IOException {
+            PriceResponse event = new PriceResponse();
+            event.setSymbol(symbol);
+            event.setPrice(price);
+            emitter.send(SseEmitter.event().name("price").data(event, MediaType.APPLICATION_JSON));
+            sentCounter.increment();
+        }
+    }
+}
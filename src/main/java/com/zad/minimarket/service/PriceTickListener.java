@@ -0,0 +1,13 @@
+package com.zad.minimarket.service;
+
+/**
+ * Notified by {@link PriceFeedService} of every price fetched from the price feed
+ */
+public interface PriceTickListener {
+
+    /**
+     * Handle a fetched price. Called on the order path, so implementations must be cheap
+     * and must not throw.
+     */
+    void onTick(String symbol, long timestampMillis, long price);
+}
@@ -1,48 +1,287 @@
 package com.zad.minimarket.service;
 
 import com.zad.minimarket.exception.RateLimitExceededException;
+import com.zad.minimarket.util.IdleExpiringCache;
+import com.zad.minimarket.util.TokenBucketTable;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
+/**
+ * Hierarchical order rate limits: per account, per symbol and global, checked in one pass.
+ * The account is checked first so a single noisy account cannot drain the shared limits;
+ * tokens taken at one level are given back when a later level rejects the request. Symbol and
+ * global limits are per node, and a limit of 0 requests per second turns a level off. All
+ * limits can be changed at runtime through the {@code ratelimits} actuator endpoint.
+ * <p>
+ * Account buckets live in a bounded store of {@code app.rate-limit.max-buckets} entries. A bucket not
+ * used for {@code app.rate-limit.idle-timeout} has refilled completely, so it is dropped and
+ * recreated full on the next request without changing the outcome; the timeout is never
+ * shorter than a full refill. When the store is full the least recently used bucket is evicted.
+ * <p>
+ * The default {@code table} engine keeps every bucket in a lock-free {@link TokenBucketTable} of
+ * primitive slots; {@code app.rate-limit.engine: bucket4j} keeps one Bucket4j bucket per account.
+ * <p>
+ * With {@code app.rate-limit.cluster.enabled} the account limit is enforced across nodes by the
+ * {@link ClusterRateLimiter}, and the local buckets only decide while Redis is unavailable.
+ */
 @Service
 @Slf4j
 public class RateLimitingService {
 
-    private final int requestsPerSecond;
-    private final int bucketCapacity;
-    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    /**
+     * Request attribute naming the account a request was already charged to
+     */
+    public static final String CHARGED_ACCOUNT_ATTRIBUTE = RateLimitingService.class.getName() + ".chargedAccount";
+
+    private static final String GLOBAL_KEY = "*";
+
+    /**
+     * Level of the hierarchy a limit applies to
+     */
+    public enum Level {
+        ACCOUNT, SYMBOL, GLOBAL
+    }
+
+    /**
+     * Requests per second refilled each second, and the burst a bucket holds. 0 requests per
+     * second means unlimited.
+     */
+    public record Limit(int requestsPerSecond, int burst) {
+    }
+
+    /**
+     * Outcome of a check: allowed, or the level that rejected it and when to retry
+     */
+    public record Decision(Level rejectedBy, long retryAfterMillis) {
+
+        public static final Decision ALLOWED = new Decision(null, 0);
+
+        public boolean isAllowed() {
+            return rejectedBy == null;
+        }
+    }
+
+    private final IdleExpiringCache<String, Bucket> buckets;
+    private final TokenBucketTable bucketTable;
+    private final TokenBucketTable symbolTable;
+    private final TokenBucketTable globalTable;
+    private final Map<Level, Limit> limits = new EnumMap<>(Level.class);
+    private final Map<Level, Counter> rejections = new EnumMap<>(Level.class);
     private final RedisTemplate<String, Object> redisTemplate;
+    private final Optional<ClusterRateLimiter> clusterRateLimiter;
 
     public RateLimitingService(@Value("${app.rate-limit.requests-per-second}") int requestsPerSecond,
                               @Value("${app.rate-limit.bucket-capacity}") int bucketCapacity,
-                              RedisTemplate<String, Object> redisTemplate) {
-        this.requestsPerSecond = requestsPerSecond;
-        this.bucketCapacity = bucketCapacity;
+                              @Value("${app.rate-limit.max-buckets:100000}") int maxBuckets,
+                              @Value("${app.rate-limit.idle-timeout:60000}") long idleTimeoutMillis,
+                              @Value("${app.rate-limit.engine:table}") String engine,
+                              @Value("${app.rate-limit.symbol.requests-per-second:0}") int symbolRequestsPerSecond,
+                              @Value("${app.rate-limit.symbol.burst:0}") int symbolBurst,
+                              @Value("${app.rate-limit.symbol.max-symbols:10000}") int maxSymbols,
+                              @Value("${app.rate-limit.global.requests-per-second:0}") int globalRequestsPerSecond,
+                              @Value("${app.rate-limit.global.burst:0}") int globalBurst,
+                              RedisTemplate<String, Object> redisTemplate,
+                              MeterRegistry meterRegistry,
+                              Optional<ClusterRateLimiter> clusterRateLimiter) {
         this.redisTemplate = redisTemplate;
+        this.clusterRateLimiter = clusterRateLimiter;
+
+        long fullRefillMillis = Math.ceilDiv(bucketCapacity, requestsPerSecond) * 1000L;
+        Counter idleEvictions = Counter.builder("rate.limit.bucket.evictions")
+            .description("Rate limit buckets evicted from the local store")
+            .tag("cause", "idle")
+            .register(meterRegistry);
+        Counter sizeEvictions = Counter.builder("rate.limit.bucket.evictions")
+            .description("Rate limit buckets evicted from the local store")
+            .tag("cause", "size")
+            .register(meterRegistry);
+        Consumer<IdleExpiringCache.EvictionCause> evictionListener =
+            cause -> (cause == IdleExpiringCache.EvictionCause.IDLE ? idleEvictions : sizeEvictions).increment();
+        if ("bucket4j".equals(engine)) {
+            this.buckets = new IdleExpiringCache<>(maxBuckets, Math.max(idleTimeoutMillis, fullRefillMillis),
+                evictionListener);
+            this.bucketTable = null;
+            Gauge.builder("rate.limit.buckets", buckets, IdleExpiringCache::size)
+                .description("Rate limit buckets held in the local store")
+                .register(meterRegistry);
+        } else {
+            this.buckets = null;
+            this.bucketTable = new TokenBucketTable(maxBuckets, bucketCapacity, requestsPerSecond, 1000,
+                idleTimeoutMillis, true, evictionListener);
+            Gauge.builder("rate.limit.buckets", bucketTable, TokenBucketTable::size)
+                .description("Rate limit buckets held in the local store")
+                .register(meterRegistry);
+        }
+        // Symbols come from the request, so an evicted symbol bucket keeps its tokens for the next one
+        this.symbolTable = new TokenBucketTable(maxSymbols, 1, 1, 1000, idleTimeoutMillis, false, cause -> { });
+        this.globalTable = new TokenBucketTable(1, 1, 1, 1000, idleTimeoutMillis, false, cause -> { });
+
+        for (Level level : Level.values()) {
+            rejections.put(level, Counter.builder("rate.limit.rejections")
+                .description("Orders rejected by a rate limit")
+                .tag("reason", level.name().toLowerCase())
+                .register(meterRegistry));
+        }
+        updateLimit(Level.ACCOUNT, new Limit(requestsPerSecond, bucketCapacity));
+        updateLimit(Level.SYMBOL, new Limit(symbolRequestsPerSecond, symbolBurst));
+        updateLimit(Level.GLOBAL, new Limit(globalRequestsPerSecond, globalBurst));
     }
 
     /**
-     * Check if request is allowed for the given account ID
+     * Check if an order for the account and symbol is allowed. A request already charged to
+     * this account by the {@code RateLimitFilter} is not charged again.
      */
-    public void checkRateLimit(String accountId) {
-        Bucket bucket = getBucketForAccount(accountId);
+    public void checkRateLimit(String accountId, String symbol) {
+        if (isChargedByCurrentRequest(accountId)) {
+            log.debug("Rate limit already checked before dispatch for account: {}", accountId);
+            return;
+        }
 
-        if (!bucket.tryConsume(1)) {
-            log.warn("Rate limit exceeded for account: {}", accountId);
-            throw new RateLimitExceededException("Rate limit exceeded for account: " + accountId);
+        Decision decision = tryConsume(accountId, symbol);
+        if (!decision.isAllowed()) {
+            String subject = switch (decision.rejectedBy()) {
+                case ACCOUNT -> "account: " + accountId;
+                case SYMBOL -> "symbol: " + symbol;
+                case GLOBAL -> "all orders";
+            };
+            log.warn("Rate limit exceeded for {}", subject);
+            throw new RateLimitExceededException("Rate limit exceeded for " + subject);
         }
 
         log.debug("Rate limit check passed for account: {}", accountId);
     }
 
+    /**
+     * Take a token at every level for an order. Nothing is taken if any level rejects it.
+     * The symbol may be null when it is not known yet; it is trimmed and upper-cased first, so
+     * spellings of one symbol share its bucket.
+     */
+    public Decision tryConsume(String accountId, String rawSymbol) {
+        String symbol = rawSymbol != null && !rawSymbol.isBlank() ? rawSymbol.trim().toUpperCase(Locale.ROOT) : null;
+        // Refunds go back to whichever bucket charged the account: the cluster lease or the local fallback
+        boolean[] chargedLocally = new boolean[1];
+        LongSupplier local = () -> {
+            chargedLocally[0] = true;
+            return tryConsumeLocally(accountId);
+        };
+        long wait = clusterRateLimiter
+            .map(limiter -> limiter.tryConsume(accountId, local))
+            .orElseGet(local::getAsLong);
+        if (wait > 0) {
+            return reject(Level.ACCOUNT, wait);
+        }
+
+        boolean symbolCharged = false;
+        if (symbol != null && isLimited(Level.SYMBOL)) {
+            wait = symbolTable.tryConsume(symbol);
+            if (wait > 0) {
+                refundAccount(accountId, chargedLocally[0]);
+                return reject(Level.SYMBOL, wait);
+            }
+            symbolCharged = true;
+        }
+
+        if (isLimited(Level.GLOBAL)) {
+            wait = globalTable.tryConsume(GLOBAL_KEY);
+            if (wait > 0) {
+                if (symbolCharged) {
+                    symbolTable.refund(symbol);
+                }
+                refundAccount(accountId, chargedLocally[0]);
+                return reject(Level.GLOBAL, wait);
+            }
+        }
+        return Decision.ALLOWED;
+    }
+
+    /**
+     * Current limit of every level
+     */
+    public synchronized Map<Level, Limit> getLimits() {
+        return new EnumMap<>(limits);
+    }
+
+    /**
+     * Change a level's limit for buckets on this node. With the Bucket4j engine, account
+     * buckets that already exist keep their old limit until they expire.
+     */
+    public synchronized void updateLimit(Level level, Limit limit) {
+        if (limit.requestsPerSecond() < 0 || (limit.requestsPerSecond() > 0 && limit.burst() <= 0)) {
+            throw new IllegalArgumentException("Requests per second must not be negative and burst must be positive");
+        }
+        if (level == Level.ACCOUNT && limit.requestsPerSecond() == 0) {
+            throw new IllegalArgumentException("The account limit cannot be turned off");
+        }
+        if (limit.requestsPerSecond() > 0) {
+            switch (level) {
+                case ACCOUNT -> {
+                    if (bucketTable != null) {
+                        bucketTable.updateLimit(limit.burst(), limit.requestsPerSecond());
+                    }
+                    clusterRateLimiter.ifPresent(limiter -> limiter.updateLimit(limit.requestsPerSecond(), limit.burst()));
+                }
+                case SYMBOL -> symbolTable.updateLimit(limit.burst(), limit.requestsPerSecond());
+                case GLOBAL -> globalTable.updateLimit(limit.burst(), limit.requestsPerSecond());
+            }
+        }
+        limits.put(level, limit);
+        log.info("Rate limit for {} set to {} requests per second, burst {}",
+            level, limit.requestsPerSecond(), limit.burst());
+    }
+
+    private boolean isLimited(Level level) {
+        return limits.get(level).requestsPerSecond() > 0;
+    }
+
+    private Decision reject(Level level, long waitMillis) {
+        rejections.get(level).increment();
+        return new Decision(level, waitMillis);
+    }
+
+    private long tryConsumeLocally(String accountId) {
+        if (bucketTable != null) {
+            return bucketTable.tryConsume(accountId);
+        }
+        ConsumptionProbe probe = getBucketForAccount(accountId).tryConsumeAndReturnRemaining(1);
+        return probe.isConsumed() ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(probe.getNanosToWaitForRefill()));
+    }
+
+    private void refundAccount(String accountId, boolean chargedLocally) {
+        if (!chargedLocally) {
+            clusterRateLimiter.get().refund(accountId);
+        } else if (bucketTable != null) {
+            bucketTable.refund(accountId);
+        } else {
+            getBucketForAccount(accountId).addTokens(1);
+        }
+    }
+
+    private static boolean isChargedByCurrentRequest(String accountId) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+            && accountId.equals(attributes.getAttribute(CHARGED_ACCOUNT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST));
+    }
+
     /**
      * Get or create bucket for account
      */
@@ -56,9 +295,11 @@ public class RateLimitingService {
     private Bucket createBucket(String accountId) {
         log.debug("Creating new rate limit bucket for account: {}", accountId);
 
-        Bandwidth limit = Bandwidth.classic(bucketCapacity, Refill.intervally(requestsPerSecond, Duration.ofSeconds(1)));
+        Limit limit = limits.get(Level.ACCOUNT);
+        Bandwidth bandwidth = Bandwidth.classic(limit.burst(),
+            Refill.intervally(limit.requestsPerSecond(), Duration.ofSeconds(1)));
         return Bucket.builder()
-                .addLimit(limit)
+                .addLimit(bandwidth)
                 .build();
     }
 
@@ -66,6 +307,9 @@ public class RateLimitingService {
      * Get remaining tokens for account
      */
     public long getRemainingTokens(String accountId) {
+        if (bucketTable != null) {
+            return bucketTable.availableTokens(accountId);
+        }
         Bucket bucket = getBucketForAccount(accountId);
         return bucket.getAvailableTokens();
     }
@@ -74,8 +318,11 @@ public class RateLimitingService {
      * Reset rate limit for account (for testing purposes)
      */
     public void resetRateLimit(String accountId) {
-        buckets.remove(accountId);
+        if (bucketTable != null) {
+            bucketTable.reset(accountId);
+        } else {
+            buckets.remove(accountId);
+        }
         log.debug("Reset rate limit for account: {}", accountId);
     }
 }
-
@@ -0,0 +1,170 @@
+package com.zad.minimarket.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.Lifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Tracks whether Redis is usable and switches callers to local fallbacks when it is not.
+ * <p>
+ * After {@code failure-threshold} consecutive failed calls the service enters degraded mode:
+ * calls go straight to their fallback and Redis is pinged every {@code probe-interval}
+ * until it answers again. Time spent degraded is exported as {@code redis.degraded.time}.
+ */
+@Slf4j
+@Service
+public class RedisAvailabilityService {
+
+    private final RedisConnectionFactory connectionFactory;
+    private final int failureThreshold;
+    private final long probeIntervalMillis;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("redis-prober").daemon().factory());
+    private final Counter fallbackCounter;
+    private final Counter degradedCounter;
+    private volatile boolean degraded;
+    private long degradedSince;
+    private long degradedNanos;
+    private ScheduledFuture<?> probe;
+
+    public RedisAvailabilityService(RedisConnectionFactory connectionFactory,
+                                    @Value("${app.redis.failure-threshold:3}") int failureThreshold,
+                                    @Value("${app.redis.probe-interval:1000}") long probeIntervalMillis,
+                                    MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory;
+        this.failureThreshold = failureThreshold;
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.fallbackCounter = Counter.builder("redis.fallback.calls")
+            .description("Redis calls served by a local fallback")
+            .register(meterRegistry);
+        this.degradedCounter = Counter.builder("redis.degraded.transitions")
+            .description("Switches to degraded mode")
+            .register(meterRegistry);
+        Gauge.builder("redis.degraded", this, s -> s.degraded ? 1 : 0)
+            .description("Whether Redis calls are currently bypassed")
+            .register(meterRegistry);
+        FunctionCounter.builder("redis.degraded.time", this, s -> s.degradedNanos() / 1e9)
+            .description("Total time spent in degraded mode")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * Run a Redis call, or the fallback if Redis is degraded or the call fails
+     */
+    public <T> T execute(Supplier<T> redisCall, Supplier<T> fallback) {
+        if (degraded) {
+            fallbackCounter.increment();
+            return fallback.get();
+        }
+        try {
+            T result = redisCall.get();
+            consecutiveFailures.set(0);
+            return result;
+        } catch (DataAccessException e) {
+            recordFailure(e);
+            fallbackCounter.increment();
+            return fallback.get();
+        }
+    }
+
+    /**
+     * Run a Redis call, skipping it if Redis is degraded or the call fails
+     */
+    public void run(Runnable redisCall) {
+        execute(() -> {
+            redisCall.run();
+            return null;
+        }, () -> null);
+    }
+
+    /**
+     * Start a Redis-backed component, retrying every probe interval until Redis accepts it
+     */
+    public void startWhenAvailable(Lifecycle component) {
+        prober.execute(() -> tryStart(component, true));
+    }
+
+    @PreDestroy
+    public void close() {
+        prober.shutdownNow();
+    }
+
+    private void tryStart(Lifecycle component, boolean firstAttempt) {
+        try {
+            component.start();
+            log.info("Started {}", component.getClass().getSimpleName());
+        } catch (RuntimeException e) {
+            if (firstAttempt) {
+                log.warn("Failed to start {}, retrying while Redis is unavailable: {}",
+                    component.getClass().getSimpleName(), e.getMessage());
+            }
+            prober.schedule(() -> tryStart(component, false), probeIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void recordFailure(DataAccessException e) {
+        log.debug("Redis call failed: {}", e.getMessage());
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            switchToDegraded(e);
+        }
+    }
+
+    private synchronized void switchToDegraded(DataAccessException e) {
+        if (degraded) {
+            return;
+        }
+        degraded = true;
+        degradedSince = System.nanoTime();
+        degradedCounter.increment();
+        log.warn("Redis unavailable after {} failed calls, switching to local fallbacks: {}",
+            consecutiveFailures.get(), e.getMessage());
+        probe = prober.scheduleWithFixedDelay(this::probe, probeIntervalMillis, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void probe() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.ping();
+            switchBack();
+        } catch (RuntimeException e) {
+            log.debug("Redis still unavailable: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void switchBack() {
+        if (!degraded) {
+            return;
+        }
+        degradedNanos += System.nanoTime() - degradedSince;
+        consecutiveFailures.set(0);
+        degraded = false;
+        probe.cancel(false);
+        log.info("Redis available again after {} ms, leaving degraded mode",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - degradedSince));
+    }
+
+    private synchronized long degradedNanos() {
+        return degradedNanos + (degraded ? System.nanoTime() - degradedSince : 0);
+    }
+}
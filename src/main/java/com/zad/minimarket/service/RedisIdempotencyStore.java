@@ -0,0 +1,142 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.IdempotentResponse;
+import com.zad.minimarket.util.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Idempotency store shared by all nodes through Redis.
+ * <p>
+ * A single script either claims a key as in flight or returns what is stored under it.
+ * Completing or releasing a key is also a single script, which publishes on
+ * {@link #COMPLETION_CHANNEL} only when another node is waiting for the key.
+ * Responses are also kept in a bounded local store, which answers on its own while
+ * Redis is unavailable.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "redis", matchIfMissing = true)
+public class RedisIdempotencyStore implements IdempotencyStore, MessageListener {
+
+    public static final String COMPLETION_CHANNEL = "idempotency:completed";
+
+    private static final String IDEMPOTENCY_KEY_PREFIX = "idempotency:";
+    private static final String WAITING_SUFFIX = ":waiting";
+    private static final byte[] IN_FLIGHT_BYTES = "IN_FLIGHT".getBytes(StandardCharsets.UTF_8);
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    /**
+     * Claims the key, or returns what is stored under it. A caller that finds the key in flight
+     * is recorded as waiting so the owner knows to publish its completion.
+     */
+    private static final RedisScript<byte[]> RESERVE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return nil end "
+            + "local stored = redis.call('get', KEYS[1]) "
+            + "if stored == ARGV[1] then redis.call('set', KEYS[2], '1', 'PX', ARGV[2]) end "
+            + "return stored",
+        byte[].class);
+    /**
+     * Stores the response and publishes the completion only if someone is waiting for it
+     */
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+        "redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+            + "if redis.call('del', KEYS[2]) == 1 then redis.call('publish', ARGV[3], ARGV[4]) end "
+            + "return 1",
+        Long.class);
+    /**
+     * Removes the in-flight marker and publishes the release only if someone is waiting for it
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then redis.call('del', KEYS[1]) end "
+            + "if redis.call('del', KEYS[2]) == 1 then redis.call('publish', ARGV[2], ARGV[3]) end "
+            + "return 1",
+        Long.class);
+
+    private final RedisTemplate<String, IdempotentResponse> redisTemplate;
+    private final RedisAvailabilityService redisAvailabilityService;
+    private final ExpiringLruCache<String, IdempotentResponse> localStore;
+    private volatile Consumer<String> remoteCompletionListener = key -> { };
+
+    public RedisIdempotencyStore(RedisTemplate<String, IdempotentResponse> redisTemplate,
+                                 RedisAvailabilityService redisAvailabilityService,
+                                 @Value("${app.redis.local-max-entries:10000}") int localMaxEntries) {
+        this.redisTemplate = redisTemplate;
+        this.redisAvailabilityService = redisAvailabilityService;
+        this.localStore = new ExpiringLruCache<>(localMaxEntries);
+    }
+
+    @Override
+    public IdempotencyService.Reservation reserve(String idempotencyKey, Duration inFlightTtl) {
+        IdempotentResponse local = localStore.get(idempotencyKey);
+        if (local != null) {
+            return IdempotencyService.Reservation.completed(local);
+        }
+        // While Redis is unavailable the caller's node-local claim is all there is
+        return redisAvailabilityService.execute(
+            () -> reserveInRedis(idempotencyKey, inFlightTtl),
+            IdempotencyService.Reservation::owned);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void complete(String idempotencyKey, IdempotentResponse response, Duration ttl) {
+        localStore.put(idempotencyKey, response, ttl);
+        redisAvailabilityService.run(() -> {
+            byte[] value = ((RedisSerializer<IdempotentResponse>) redisTemplate.getValueSerializer()).serialize(response);
+            redisTemplate.execute(COMPLETE_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER, keys(idempotencyKey),
+                value, bytes(String.valueOf(ttl.toMillis())), bytes(COMPLETION_CHANNEL), bytes(idempotencyKey));
+        });
+    }
+
+    @Override
+    public void release(String idempotencyKey) {
+        redisAvailabilityService.run(() -> redisTemplate.execute(RELEASE_SCRIPT, RedisSerializer.byteArray(),
+            LONG_SERIALIZER, keys(idempotencyKey), IN_FLIGHT_BYTES, bytes(COMPLETION_CHANNEL), bytes(idempotencyKey)));
+    }
+
+    @Override
+    public void onRemoteCompletion(Consumer<String> listener) {
+        this.remoteCompletionListener = listener;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        remoteCompletionListener.accept(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private IdempotencyService.Reservation reserveInRedis(String idempotencyKey, Duration inFlightTtl) {
+        byte[] stored = redisTemplate.execute(RESERVE_SCRIPT, RedisSerializer.byteArray(), RedisSerializer.byteArray(),
+            keys(idempotencyKey), IN_FLIGHT_BYTES, bytes(String.valueOf(inFlightTtl.toMillis())));
+        if (stored == null) {
+            return IdempotencyService.Reservation.owned();
+        }
+        if (Arrays.equals(stored, IN_FLIGHT_BYTES)) {
+            return IdempotencyService.Reservation.inFlight();
+        }
+        IdempotentResponse response = (IdempotentResponse) redisTemplate.getValueSerializer().deserialize(stored);
+        return IdempotencyService.Reservation.completed(response);
+    }
+
+    private static List<String> keys(String idempotencyKey) {
+        String key = IDEMPOTENCY_KEY_PREFIX + idempotencyKey;
+        return List.of(key, key + WAITING_SUFFIX);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
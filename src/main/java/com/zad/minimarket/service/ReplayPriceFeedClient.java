@@ -0,0 +1,128 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.codec.PriceRecording;
+import com.zad.minimarket.dto.PriceResponse;
+import com.zad.minimarket.exception.PriceFeedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Serves prices from a recording made by {@link PriceFeedRecorder}.
+ * <p>
+ * With a positive speed the recording is played against the wall clock at that multiple
+ * of real time, and every request gets the latest recorded price of its symbol at the
+ * current replay position. With speed 0 the recording is played at maximum speed: every
+ * request gets the next recorded tick of its symbol. When {@code loop} is set the
+ * recording restarts after its last tick.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.price-feed.mode", havingValue = "replay")
+public class ReplayPriceFeedClient implements PriceFeedClient {
+
+    private final PriceRecording recording;
+    private final double speed;
+    private final boolean loop;
+    private final LongSupplier clock;
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final int[][] ticksBySymbol;
+    private final int[] symbolCursors;
+    private final long[] currentPrices;
+    private long replayStart;
+    private int cursor;
+
+    @Autowired
+    public ReplayPriceFeedClient(@Value("${app.price-feed.replay.path}") Path path,
+                                 @Value("${app.price-feed.replay.speed:1.0}") double speed,
+                                 @Value("${app.price-feed.replay.loop:true}") boolean loop) throws IOException {
+        this(PriceRecording.read(path), speed, loop, System::currentTimeMillis);
+        log.info("Replaying {} recorded ticks for {} symbols from {} at {}", recording.size(),
+            recording.symbolCount(), path, speed > 0 ? speed + "x" : "maximum speed");
+    }
+
+    ReplayPriceFeedClient(PriceRecording recording, double speed, boolean loop, LongSupplier clock) {
+        if (recording.size() == 0) {
+            throw new IllegalArgumentException("Price recording is empty");
+        }
+        this.recording = recording;
+        this.speed = speed;
+        this.loop = loop;
+        this.clock = clock;
+        this.replayStart = clock.getAsLong();
+
+        int symbolCount = recording.symbolCount();
+        int[] counts = new int[symbolCount];
+        for (int i = 0; i < recording.size(); i++) {
+            counts[recording.symbolId(i)]++;
+        }
+        this.ticksBySymbol = new int[symbolCount][];
+        for (int id = 0; id < symbolCount; id++) {
+            symbolIds.put(recording.symbol(id), id);
+            ticksBySymbol[id] = new int[counts[id]];
+        }
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < recording.size(); i++) {
+            int id = recording.symbolId(i);
+            ticksBySymbol[id][counts[id]++] = i;
+        }
+        this.symbolCursors = new int[symbolCount];
+        this.currentPrices = new long[symbolCount];
+        resetPrices();
+    }
+
+    @Override
+    public synchronized PriceResponse fetchPrice(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id == null) {
+            throw new PriceFeedException("Symbol not found in price recording: " + symbol);
+        }
+
+        PriceResponse price = new PriceResponse();
+        price.setSymbol(symbol);
+        price.setPrice(speed > 0 ? priceAtReplayTime(id) : nextTick(id));
+        return price;
+    }
+
+    private long priceAtReplayTime(int id) {
+        long recordingStart = recording.timestamp(0);
+        long elapsed = (long) ((clock.getAsLong() - replayStart) * speed);
+        if (loop && recordingStart + elapsed > recording.timestamp(recording.size() - 1) && cursor == recording.size()) {
+            replayStart = clock.getAsLong();
+            cursor = 0;
+            resetPrices();
+            elapsed = 0;
+        }
+        while (cursor < recording.size() && recording.timestamp(cursor) <= recordingStart + elapsed) {
+            currentPrices[recording.symbolId(cursor)] = recording.price(cursor);
+            cursor++;
+        }
+        return currentPrices[id];
+    }
+
+    private long nextTick(int id) {
+        int[] ticks = ticksBySymbol[id];
+        if (symbolCursors[id] == ticks.length) {
+            symbolCursors[id] = loop ? 0 : ticks.length - 1;
+        }
+        return recording.price(ticks[symbolCursors[id]++]);
+    }
+
+    /**
+     * Before a symbol's first tick is reached, serve that first recorded price
+     */
+    private void resetPrices() {
+        for (int id = 0; id < ticksBySymbol.length; id++) {
+            currentPrices[id] = recording.price(ticksBySymbol[id][0]);
+        }
+    }
+}
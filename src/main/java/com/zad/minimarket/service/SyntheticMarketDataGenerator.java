@@ -0,0 +1,132 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceResponse;
+import com.zad.minimarket.util.FixedPoint;
+import com.zad.minimarket.util.IdleExpiringCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic market data following geometric Brownian motion per symbol.
+ * <p>
+ * Each symbol owns a random stream derived from the seed and the symbol name, so its path
+ * does not depend on which other symbols are requested. With a positive tick rate the path
+ * advances with wall-clock time; with a tick rate of 0 every request advances one tick,
+ * which makes a sequential run fully reproducible.
+ * <p>
+ * However many ticks have passed since a symbol was last read, the path jumps there with a
+ * single lognormal step, so a cold symbol costs the same as a hot one. At most
+ * {@code max-symbols} paths are kept, and paths idle for {@code path-idle-timeout} are
+ * dropped; a dropped symbol starts a fresh path when it is requested again.
+ */
+@Slf4j
+@Service
+public class SyntheticMarketDataGenerator {
+
+    /**
+     * Trading seconds per year (252 days of 6.5 hours), used to scale annualised volatility
+     */
+    private static final double TRADING_SECONDS_PER_YEAR = 252 * 6.5 * 3600;
+
+    private final long seed;
+    private final double drift;
+    private final double volatility;
+    private final double tickRate;
+    private final List<String> universe;
+    private final long startNanos = System.nanoTime();
+    private final IdleExpiringCache<String, SymbolPath> paths;
+
+    public SyntheticMarketDataGenerator(@Value("${app.synthetic-feed.seed:42}") long seed,
+                                        @Value("${app.synthetic-feed.drift:0.0}") double drift,
+                                        @Value("${app.synthetic-feed.volatility:0.2}") double volatility,
+                                        @Value("${app.synthetic-feed.tick-rate:10}") double tickRate,
+                                        @Value("${app.synthetic-feed.universe-size:5000}") int universeSize,
+                                        @Value("${app.synthetic-feed.max-symbols:10000}") int maxSymbols,
+                                        @Value("${app.synthetic-feed.path-idle-timeout:600000}") long pathIdleTimeoutMillis) {
+        this.seed = seed;
+        this.drift = drift;
+        this.volatility = volatility;
+        this.tickRate = tickRate;
+        this.universe = buildUniverse(universeSize);
+        this.paths = new IdleExpiringCache<>(maxSymbols, pathIdleTimeoutMillis, cause -> { });
+    }
+
+    /**
+     * Symbols in the synthetic universe: SYM00000, SYM00001, ...
+     */
+    public List<String> getUniverse() {
+        return universe;
+    }
+
+    /**
+     * Current synthetic price for a symbol, which need not be part of the universe
+     */
+    public PriceResponse getPrice(String symbol) {
+        SymbolPath path = paths.computeIfAbsent(symbol, this::createPath);
+
+        PriceResponse price = new PriceResponse();
+        price.setSymbol(symbol);
+        price.setPrice(path.advance(targetTick(path)));
+        return price;
+    }
+
+    private long targetTick(SymbolPath path) {
+        if (tickRate <= 0) {
+            return path.tick + 1;
+        }
+        return (long) ((System.nanoTime() - startNanos) / 1_000_000_000.0 * tickRate);
+    }
+
+    private SymbolPath createPath(String symbol) {
+        SplittableRandom random = new SplittableRandom(seed ^ (symbol.hashCode() * 0x9E3779B97F4A7C15L));
+        double initialPrice = Math.round((10 + random.nextDouble() * 490) * 100) / 100.0;
+        double dt = 1 / ((tickRate > 0 ? tickRate : 1) * TRADING_SECONDS_PER_YEAR);
+        log.debug("Created synthetic price path for {} starting at {}", symbol, initialPrice);
+        return new SymbolPath(random, initialPrice, (drift - volatility * volatility / 2) * dt,
+            volatility * Math.sqrt(dt));
+    }
+
+    private static List<String> buildUniverse(int size) {
+        List<String> symbols = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            symbols.add(String.format("SYM%05d", i));
+        }
+        return Collections.unmodifiableList(symbols);
+    }
+
+    private static final class SymbolPath {
+
+        private final SplittableRandom random;
+        private final double driftPerTick;
+        private final double diffusionPerTick;
+        private double price;
+        private long tick;
+
+        private SymbolPath(SplittableRandom random, double price, double driftPerTick, double diffusionPerTick) {
+            this.random = random;
+            this.price = price;
+            this.driftPerTick = driftPerTick;
+            this.diffusionPerTick = diffusionPerTick;
+        }
+
+        /**
+         * Move the path to the target tick and return the price in fixed-point units. The log
+         * price change over n ticks is normal with n times the per-tick drift and variance, so
+         * any gap is covered with one draw.
+         */
+        private synchronized long advance(long targetTick) {
+            if (tick < targetTick) {
+                long ticks = targetTick - tick;
+                price *= StrictMath.exp(driftPerTick * ticks + diffusionPerTick * Math.sqrt(ticks) * random.nextGaussian());
+                tick = targetTick;
+            }
+            return Math.max(1, Math.round(price * FixedPoint.ONE));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serves prices in-process from the synthetic market data generator
+ */
+@Component
+@ConditionalOnProperty(name = "app.price-feed.mode", havingValue = "synthetic")
+public class SyntheticPriceFeedClient implements PriceFeedClient {
+
+    private final SyntheticMarketDataGenerator generator;
+
+    public SyntheticPriceFeedClient(SyntheticMarketDataGenerator generator) {
+        this.generator = generator;
+    }
+
+    @Override
+    public PriceResponse fetchPrice(String symbol) {
+        return generator.getPrice(symbol);
+    }
+}
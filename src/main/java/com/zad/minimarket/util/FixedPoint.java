@@ -0,0 +1,219 @@
+package com.zad.minimarket.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point decimal arithmetic on {@code long} values with 6 implied decimals,
+ * matching the {@code precision = 18, scale = 6} columns.
+ * <p>
+ * A value of {@code 210_550_000L} represents {@code 210.550000}. Rounding follows
+ * {@link RoundingMode#HALF_UP}, the same as {@code BigDecimal.setScale(6, HALF_UP)}.
+ * {@link BigDecimal} is only used at the API/DB edge and as an overflow fallback.
+ */
+public final class FixedPoint {
+
+    public static final int SCALE = 6;
+    public static final long ONE = 1_000_000L;
+
+    private static final int MAX_CHARS = 21;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Convert a decimal to fixed-point, rounding HALF_UP to 6 decimals
+     */
+    public static long fromBigDecimal(BigDecimal value) {
+        return value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convert fixed-point to a decimal with scale 6
+     */
+    public static BigDecimal toBigDecimal(long value) {
+        return BigDecimal.valueOf(value, SCALE);
+    }
+
+    /**
+     * Parse a plain decimal such as {@code -210.5500005}, rounding HALF_UP to 6 decimals.
+     * Exponent notation falls back to {@link BigDecimal}.
+     */
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    public static long parse(char[] chars, int offset, int length) {
+        return parse(new CharArraySequence(chars), offset, length);
+    }
+
+    private static long parse(CharSequence text, int offset, int length) {
+        if (length == 0) {
+            throw new NumberFormatException("Empty decimal");
+        }
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        char first = text.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long units = 0;
+        int fractionDigits = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (!seenPoint) {
+                    units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+                } else if (fractionDigits < SCALE) {
+                    units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+                    fractionDigits++;
+                } else if (fractionDigits == SCALE) {
+                    roundUp = c >= '5';
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (c == 'e' || c == 'E') {
+                return fromBigDecimal(new BigDecimal(text.subSequence(offset, end).toString()));
+            } else {
+                throw new NumberFormatException("Invalid decimal: " + text.subSequence(offset, end));
+            }
+        }
+        if (!seenDigit) {
+            throw new NumberFormatException("Invalid decimal: " + text.subSequence(offset, end));
+        }
+
+        for (int scale = Math.min(fractionDigits, SCALE); scale < SCALE; scale++) {
+            units = Math.multiplyExact(units, 10);
+        }
+        if (roundUp) {
+            units = Math.addExact(units, 1);
+        }
+        return negative ? -units : units;
+    }
+
+    /**
+     * Multiply two fixed-point values, rounding HALF_UP to 6 decimals
+     */
+    public static long multiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            long quotient = low / ONE;
+            long remainder = low % ONE;
+            if (Math.abs(remainder) >= ONE / 2) {
+                quotient += low < 0 ? -1 : 1;
+            }
+            return quotient;
+        }
+        return fromBigDecimal(toBigDecimal(a).multiply(toBigDecimal(b)));
+    }
+
+    /**
+     * Format as a plain decimal with exactly 6 fraction digits
+     */
+    public static String toString(long value) {
+        char[] buffer = new char[MAX_CHARS];
+        int start = format(value, buffer);
+        return new String(buffer, start, MAX_CHARS - start);
+    }
+
+    /**
+     * Write the value right-aligned into a buffer of at least 21 chars, returning the start offset
+     */
+    private static int format(long value, char[] buffer) {
+        if (value == Long.MIN_VALUE) {
+            String text = toBigDecimal(value).toPlainString();
+            text.getChars(0, text.length(), buffer, MAX_CHARS - text.length());
+            return MAX_CHARS - text.length();
+        }
+        boolean negative = value < 0;
+        long remaining = Math.abs(value);
+        int pos = MAX_CHARS;
+        for (int digit = 0; digit < SCALE; digit++) {
+            buffer[--pos] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        buffer[--pos] = '.';
+        do {
+            buffer[--pos] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        if (negative) {
+            buffer[--pos] = '-';
+        }
+        return pos;
+    }
+
+    /**
+     * Writes a fixed-point value as a JSON number without going through {@link BigDecimal}
+     */
+    public static class Serializer extends JsonSerializer<Long> {
+
+        @Override
+        public void serialize(Long value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            char[] buffer = new char[MAX_CHARS];
+            int start = format(value, buffer);
+            gen.writeNumber(buffer, start, MAX_CHARS - start);
+        }
+    }
+
+    /**
+     * Reads a JSON number or string straight from the parser buffer into a fixed-point value
+     */
+    public static class Deserializer extends JsonDeserializer<Long> {
+
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT
+                    || token == JsonToken.VALUE_STRING) {
+                try {
+                    return parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                } catch (NumberFormatException | ArithmeticException e) {
+                    return (Long) ctxt.handleWeirdStringValue(Long.class, p.getText(), e.getMessage());
+                }
+            }
+            return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+        }
+    }
+
+    private record CharArraySequence(char[] buffer) implements CharSequence {
+
+        @Override
+        public int length() {
+            return buffer.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return buffer[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(buffer, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer);
+        }
+    }
+}
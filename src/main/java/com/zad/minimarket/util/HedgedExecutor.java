@@ -0,0 +1,201 @@
+package com.zad.minimarket.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs a call and, if it has not answered within a percentile of recently observed
+ * latency, sends one identical hedge call. The first successful answer wins and the
+ * other call is cancelled by interrupting its virtual thread. A cancelled call is recorded
+ * with the time it had run so far, so the slow calls that get hedged still count towards
+ * the percentile instead of pulling the hedge delay down.
+ * <p>
+ * Hedges are limited by a budget: every call earns {@code budgetPercent} hundredths of
+ * a hedge credit, capped at a small burst, and every hedge spends one full credit.
+ */
+@Slf4j
+public class HedgedExecutor implements AutoCloseable {
+
+    private static final long CREDIT = 100;
+    private static final long MAX_CREDITS = 10 * CREDIT;
+
+    private final boolean enabled;
+    private final long minDelayNanos;
+    private final long budgetPercent;
+    private final LatencyTracker latencyTracker;
+    private final AtomicLong credits = new AtomicLong();
+    private final ExecutorService executor;
+    private final Counter hedgesSent;
+    private final Counter hedgeWins;
+    private final Counter budgetExhausted;
+
+    public HedgedExecutor(String name, boolean enabled, double percentile, long minDelayMillis, int budgetPercent,
+                          int windowSize, MeterRegistry meterRegistry) {
+        this(name, enabled, minDelayMillis, budgetPercent,
+            new LatencyTracker(windowSize, percentile, Math.min(32, windowSize)), meterRegistry);
+    }
+
+    HedgedExecutor(String name, boolean enabled, long minDelayMillis, int budgetPercent,
+                   LatencyTracker latencyTracker, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.budgetPercent = budgetPercent;
+        this.latencyTracker = latencyTracker;
+        this.executor = enabled ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        this.hedgesSent = Counter.builder(name + ".hedge.sent")
+            .description("Hedge requests sent")
+            .register(meterRegistry);
+        this.hedgeWins = Counter.builder(name + ".hedge.wins")
+            .description("Hedge requests that answered before the original request")
+            .register(meterRegistry);
+        this.budgetExhausted = Counter.builder(name + ".hedge.budget.exhausted")
+            .description("Hedges skipped because the hedge budget was exhausted")
+            .register(meterRegistry);
+        Gauge.builder(name + ".hedge.delay", latencyTracker, t -> Math.max(0, t.percentileNanos()) / 1_000_000.0)
+            .description("Current hedge delay in milliseconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Execute the call, hedging it if it is slower than the tracked latency percentile.
+     * Runtime exceptions thrown by the call are rethrown unchanged.
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        credits.getAndUpdate(c -> Math.min(MAX_CREDITS, c + budgetPercent));
+
+        CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        Attempt<T> primaryAttempt = new Attempt<>(call);
+        Future<T> primary = completionService.submit(primaryAttempt);
+        Attempt<T> hedgeAttempt = null;
+        Future<T> hedge = null;
+        try {
+            long percentile = latencyTracker.percentileNanos();
+            if (percentile < 0) {
+                return await(primary);
+            }
+            Future<T> first = completionService.poll(Math.max(minDelayNanos, percentile), TimeUnit.NANOSECONDS);
+            if (first != null) {
+                return await(first);
+            }
+            if (!tryAcquireCredit()) {
+                budgetExhausted.increment();
+                return await(primary);
+            }
+
+            hedgesSent.increment();
+            hedgeAttempt = new Attempt<>(call);
+            hedge = completionService.submit(hedgeAttempt);
+            log.debug("Sent hedge request after {} ms", TimeUnit.NANOSECONDS.toMillis(Math.max(minDelayNanos, percentile)));
+
+            RuntimeException failure = null;
+            for (int pending = 2; pending > 0; pending--) {
+                Future<T> done = completionService.take();
+                try {
+                    T result = await(done);
+                    if (done == hedge) {
+                        hedgeWins.increment();
+                    }
+                    return result;
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for hedged call", e);
+        } finally {
+            cancel(primary, primaryAttempt);
+            if (hedge != null) {
+                cancel(hedge, hedgeAttempt);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Cancel a call still running, recording the time it has taken so far
+     */
+    private static <T> void cancel(Future<T> future, Attempt<T> attempt) {
+        if (!future.isDone()) {
+            attempt.recordLatency();
+            future.cancel(true);
+        }
+    }
+
+    private boolean tryAcquireCredit() {
+        long current;
+        do {
+            current = credits.get();
+            if (current < CREDIT) {
+                return false;
+            }
+        } while (!credits.compareAndSet(current, current - CREDIT));
+        return true;
+    }
+
+    /**
+     * One call of a hedged pair, recording its latency exactly once: when it succeeds, or when
+     * it is cancelled, whichever comes first
+     */
+    private final class Attempt<T> implements Callable<T> {
+
+        private final Supplier<T> call;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean recorded = new AtomicBoolean();
+
+        private Attempt(Supplier<T> call) {
+            this.call = call;
+        }
+
+        @Override
+        public T call() {
+            T result = call.get();
+            recordLatency();
+            return result;
+        }
+
+        private void recordLatency() {
+            if (recorded.compareAndSet(false, true)) {
+                latencyTracker.record(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.zad.minimarket.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded in-process map whose entries expire once they have not been read for the idle
+ * timeout. When full, the least recently used entry is evicted.
+ * <p>
+ * Entries are split over independently locked stripes, each an access-ordered map, so the
+ * idlest entries of a stripe are always at its head and expiring them is amortised O(1).
+ */
+public class IdleExpiringCache<K, V> {
+
+    private static final int STRIPES = 16;
+
+    /**
+     * Why an entry was evicted
+     */
+    public enum EvictionCause {
+        IDLE, SIZE
+    }
+
+    private final long idleTimeoutMillis;
+    private final LongSupplier clock;
+    private final Consumer<EvictionCause> evictionListener;
+    private final Stripe[] stripes;
+
+    public IdleExpiringCache(int maxEntries, long idleTimeoutMillis, Consumer<EvictionCause> evictionListener) {
+        this(maxEntries, idleTimeoutMillis, evictionListener, System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    public IdleExpiringCache(int maxEntries, long idleTimeoutMillis, Consumer<EvictionCause> evictionListener,
+                             LongSupplier clock) {
+        if (maxEntries <= 0 || idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Max entries and idle timeout must be positive");
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.clock = clock;
+        this.evictionListener = evictionListener;
+        int stripeCount = Math.min(STRIPES, maxEntries);
+        this.stripes = new IdleExpiringCache.Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // Spread the remainder so the stripes add up to exactly maxEntries
+            stripes[i] = new Stripe(maxEntries / stripeCount + (i < maxEntries % stripeCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Value for the key, created with the factory if absent or expired
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> factory) {
+        Stripe stripe = stripeFor(key);
+        long now = clock.getAsLong();
+        synchronized (stripe) {
+            stripe.expire(now);
+            Entry<V> entry = stripe.entries.get(key);
+            if (entry == null) {
+                entry = new Entry<>(factory.apply(key));
+                stripe.entries.put(key, entry);
+            }
+            entry.lastAccess = now;
+            return entry.value;
+        }
+    }
+
+    /**
+     * Store the value for the key, replacing any previous one
+     */
+    public void put(K key, V value) {
+        Stripe stripe = stripeFor(key);
+        long now = clock.getAsLong();
+        synchronized (stripe) {
+            stripe.expire(now);
+            Entry<V> entry = new Entry<>(value);
+            entry.lastAccess = now;
+            stripe.entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Value for the key, or null if absent or expired
+     */
+    public V getIfPresent(K key) {
+        Stripe stripe = stripeFor(key);
+        long now = clock.getAsLong();
+        synchronized (stripe) {
+            stripe.expire(now);
+            Entry<V> entry = stripe.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            entry.lastAccess = now;
+            return entry.value;
+        }
+    }
+
+    public void remove(K key) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.entries.remove(key);
+        }
+    }
+
+    /**
+     * Number of entries, after expiring idle ones
+     */
+    public int size() {
+        long now = clock.getAsLong();
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.expire(now);
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(K key) {
+        int hash = key.hashCode();
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+
+    private final class Stripe {
+
+        private final LinkedHashMap<K, Entry<V>> entries;
+
+        private Stripe(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    if (size() > maxEntries) {
+                        evictionListener.accept(EvictionCause.SIZE);
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private void expire(long now) {
+            Iterator<Entry<V>> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (now - iterator.next().lastAccess < idleTimeoutMillis) {
+                    return;
+                }
+                iterator.remove();
+                evictionListener.accept(EvictionCause.IDLE);
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private long lastAccess;
+
+        private Entry(V value) {
+            this.value = value;
+        }
+    }
+}
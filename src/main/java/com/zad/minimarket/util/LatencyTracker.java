@@ -0,0 +1,48 @@
+package com.zad.minimarket.util;
+
+import java.util.Arrays;
+
+/**
+ * Tracks a percentile over a sliding window of recent latency samples.
+ * The percentile is recomputed every few samples rather than on every read.
+ */
+public class LatencyTracker {
+
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final long[] samples;
+    private final double percentile;
+    private final int minSamples;
+    private int next;
+    private long count;
+    private volatile long percentileNanos = -1;
+
+    public LatencyTracker(int windowSize, double percentile, int minSamples) {
+        if (windowSize <= 0 || percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid latency window or percentile");
+        }
+        this.samples = new long[windowSize];
+        this.percentile = percentile;
+        this.minSamples = Math.min(minSamples, windowSize);
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count++;
+        if (count >= minSamples && (count == minSamples || count % RECOMPUTE_EVERY == 0)) {
+            int size = (int) Math.min(count, samples.length);
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = Math.max(0, (int) Math.ceil(percentile / 100 * size) - 1);
+            percentileNanos = sorted[index];
+        }
+    }
+
+    /**
+     * Current percentile in nanoseconds, or -1 until enough samples have been recorded
+     */
+    public long percentileNanos() {
+        return percentileNanos;
+    }
+}
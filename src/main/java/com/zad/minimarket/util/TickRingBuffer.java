@@ -0,0 +1,61 @@
+package com.zad.minimarket.util;
+
+/**
+ * Fixed-size ring buffer of price ticks backed by primitive arrays, so recording a tick
+ * never allocates. Once full, the oldest tick is overwritten.
+ */
+public class TickRingBuffer {
+
+    private final long[] timestamps;
+    private final long[] prices;
+    private int next;
+    private int size;
+
+    public TickRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.timestamps = new long[capacity];
+        this.prices = new long[capacity];
+    }
+
+    /**
+     * Record a tick. Timestamps are kept non-decreasing so readers can rely on chronological order.
+     */
+    public synchronized void add(long timestampMillis, long price) {
+        if (size > 0) {
+            long last = timestamps[(next - 1 + timestamps.length) % timestamps.length];
+            timestampMillis = Math.max(timestampMillis, last);
+        }
+        timestamps[next] = timestampMillis;
+        prices[next] = price;
+        next = (next + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return timestamps.length;
+    }
+
+    /**
+     * Visit ticks from oldest to newest while holding the buffer lock
+     */
+    public synchronized void forEach(TickConsumer consumer) {
+        int start = (next - size + timestamps.length) % timestamps.length;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % timestamps.length;
+            consumer.accept(timestamps[index], prices[index]);
+        }
+    }
+
+    @FunctionalInterface
+    public interface TickConsumer {
+        void accept(long timestampMillis, long price);
+    }
+}
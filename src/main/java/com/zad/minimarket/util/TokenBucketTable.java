@@ -0,0 +1,238 @@
+package com.zad.minimarket.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed-size, lock-free table of token buckets that refill {@code refillTokens} at the end of
+ * every {@code refillPeriodMillis}, like a Bucket4j bucket with an interval refill.
+ * <p>
+ * Buckets live in two {@link AtomicLongArray}s used as an open-addressing table: one holds a
+ * 64-bit hash of the key, the other the bucket state, packing the last refill time in the high
+ * bits and the token count in the low {@value #TOKEN_BITS} bits. Refill is computed lazily, so a
+ * check is one read and at most one CAS, without allocating. Keys are only told apart by their
+ * 64-bit hash.
+ * <p>
+ * A key is looked up within {@value #MAX_PROBES} slots of its home slot. When none is free, a
+ * bucket idle for the idle timeout takes the new key, since it has refilled completely; failing
+ * that the least recently refilled bucket is evicted. The new key starts full when
+ * {@code refillEvicted} is set; otherwise it takes over the evicted bucket's tokens, so cycling
+ * through more keys than the table holds does not hand out fresh bursts. A check racing with
+ * the eviction of its own bucket may be charged to the new owner.
+ */
+public class TokenBucketTable {
+
+    static final int TOKEN_BITS = 20;
+    static final int MAX_PROBES = 16;
+
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long EMPTY = 0;
+    /**
+     * State of a bucket that has not been used yet, read as full
+     */
+    private static final long FRESH = 0;
+
+    private final long refillPeriodMillis;
+    private final long idleTimeoutMillis;
+    private final boolean refillEvicted;
+    private volatile long capacity;
+    private volatile long refillTokens;
+    private volatile long idleMillis;
+    private final Consumer<IdleExpiringCache.EvictionCause> evictionListener;
+    private final LongSupplier clock;
+    private final long epoch;
+    private final AtomicLongArray keys;
+    private final AtomicLongArray states;
+    private final int mask;
+
+    public TokenBucketTable(int maxBuckets, int capacity, int refillTokens, long refillPeriodMillis,
+                            long idleTimeoutMillis, boolean refillEvicted,
+                            Consumer<IdleExpiringCache.EvictionCause> evictionListener) {
+        this(maxBuckets, capacity, refillTokens, refillPeriodMillis, idleTimeoutMillis, refillEvicted,
+            evictionListener, System::currentTimeMillis);
+    }
+
+    public TokenBucketTable(int maxBuckets, int capacity, int refillTokens, long refillPeriodMillis,
+                            long idleTimeoutMillis, boolean refillEvicted,
+                            Consumer<IdleExpiringCache.EvictionCause> evictionListener, LongSupplier clock) {
+        if (refillPeriodMillis <= 0 || maxBuckets <= 0) {
+            throw new IllegalArgumentException("Invalid token bucket table settings");
+        }
+        this.refillPeriodMillis = refillPeriodMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.refillEvicted = refillEvicted;
+        updateLimit(capacity, refillTokens);
+        this.evictionListener = evictionListener;
+        this.clock = clock;
+        // Keep relative times positive so a used bucket never packs to FRESH
+        this.epoch = clock.getAsLong() - 1;
+        // Half full at most, so probe sequences stay short
+        int slots = Integer.highestOneBit(Math.max(MAX_PROBES, maxBuckets) * 2 - 1) << 1;
+        this.keys = new AtomicLongArray(slots);
+        this.states = new AtomicLongArray(slots);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Take a token for the key. Returns 0 if one was available, otherwise the milliseconds
+     * until the next refill.
+     */
+    public long tryConsume(String key) {
+        long now = clock.getAsLong() - epoch;
+        int slot = slotFor(hash(key), now);
+        while (true) {
+            long state = states.get(slot);
+            long last = lastRefill(state, now);
+            long tokens = tokens(state, now);
+            if (tokens == 0) {
+                return refillPeriodMillis - (now - last);
+            }
+            if (states.compareAndSet(slot, state, pack(last, tokens - 1))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Give back a token taken by {@link #tryConsume} for a request that was rejected elsewhere
+     */
+    public void refund(String key) {
+        long now = clock.getAsLong() - epoch;
+        int slot = slotFor(hash(key), now);
+        while (true) {
+            long state = states.get(slot);
+            long tokens = tokens(state, now);
+            if (state == FRESH || tokens >= capacity
+                    || states.compareAndSet(slot, state, pack(lastRefill(state, now), tokens + 1))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Change the limit of every bucket. Buckets holding more tokens than the new capacity are
+     * cut down to it on their next check.
+     */
+    public void updateLimit(int capacity, int refillTokens) {
+        if (capacity <= 0 || capacity > TOKEN_MASK || refillTokens <= 0) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + TOKEN_MASK
+                + " and refill tokens positive");
+        }
+        // A bucket untouched for a full refill is indistinguishable from a new one
+        long fullRefillMillis = Math.ceilDiv(capacity, refillTokens) * refillPeriodMillis;
+        this.idleMillis = Math.max(idleTimeoutMillis, fullRefillMillis);
+        this.refillTokens = refillTokens;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Tokens currently available for the key
+     */
+    public long availableTokens(String key) {
+        long now = clock.getAsLong() - epoch;
+        return tokens(states.get(slotFor(hash(key), now)), now);
+    }
+
+    /**
+     * Refill the key's bucket completely
+     */
+    public void reset(String key) {
+        states.set(slotFor(hash(key), clock.getAsLong() - epoch), FRESH);
+    }
+
+    /**
+     * Number of buckets in use, not counting idle ones
+     */
+    public int size() {
+        long now = clock.getAsLong() - epoch;
+        int size = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            if (keys.get(slot) != EMPTY && !isIdle(states.get(slot), now)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private int slotFor(long hash, long now) {
+        while (true) {
+            int home = (int) hash & mask;
+            int victim = -1;
+            long victimLast = Long.MAX_VALUE;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int slot = (home + probe) & mask;
+                long current = keys.get(slot);
+                if (current == hash) {
+                    return slot;
+                }
+                if (current == EMPTY) {
+                    // Slots are never emptied again, so the key cannot sit further along
+                    if (keys.compareAndSet(slot, EMPTY, hash) || keys.get(slot) == hash) {
+                        return slot;
+                    }
+                    continue;
+                }
+                long state = states.get(slot);
+                long last = state == FRESH ? now : state >>> TOKEN_BITS;
+                if (last < victimLast) {
+                    victim = slot;
+                    victimLast = last;
+                }
+            }
+
+            long previous = keys.get(victim);
+            if (previous != hash && keys.compareAndSet(victim, previous, hash)) {
+                if (now - victimLast >= idleMillis) {
+                    evictionListener.accept(IdleExpiringCache.EvictionCause.IDLE);
+                } else {
+                    if (refillEvicted) {
+                        states.set(victim, FRESH);
+                    }
+                    evictionListener.accept(IdleExpiringCache.EvictionCause.SIZE);
+                }
+                return victim;
+            }
+        }
+    }
+
+    private long tokens(long state, long now) {
+        if (state == FRESH) {
+            return capacity;
+        }
+        long last = state >>> TOKEN_BITS;
+        long tokens = state & TOKEN_MASK;
+        long periods = (now - last) / refillPeriodMillis;
+        long limit = capacity;
+        return Math.min(limit, periods <= 0 ? tokens : tokens + Math.min(periods, limit) * refillTokens);
+    }
+
+    private long lastRefill(long state, long now) {
+        if (state == FRESH) {
+            return now;
+        }
+        long last = state >>> TOKEN_BITS;
+        long periods = (now - last) / refillPeriodMillis;
+        return periods <= 0 ? last : last + periods * refillPeriodMillis;
+    }
+
+    private boolean isIdle(long state, long now) {
+        return state == FRESH || now - (state >>> TOKEN_BITS) >= idleMillis;
+    }
+
+    private static long pack(long last, long tokens) {
+        return last << TOKEN_BITS | tokens;
+    }
+
+    private static long hash(String key) {
+        // FNV-1a over the chars with a final avalanche; never EMPTY
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash;
+    }
+}
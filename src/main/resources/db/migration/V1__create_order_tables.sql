@@ -0,0 +1,29 @@
+-- Identifiers are allocated by Hibernate in blocks of 50
+CREATE SEQUENCE orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE executions_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE orders (
+    id BIGINT PRIMARY KEY,
+    account_id VARCHAR(255) NOT NULL,
+    symbol VARCHAR(255) NOT NULL,
+    side VARCHAR(10) NOT NULL CHECK (side IN ('BUY', 'SELL')),
+    quantity NUMERIC(18, 6) NOT NULL,
+    status VARCHAR(20) NOT NULL CHECK (status IN ('PENDING', 'EXECUTED', 'FAILED', 'CANCELLED')),
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE executions (
+    id BIGINT PRIMARY KEY,
+    order_id BIGINT NOT NULL REFERENCES orders (id),
+    price NUMERIC(18, 6) NOT NULL,
+    executed_at TIMESTAMP(6) NOT NULL
+);
+
+-- Order counts by status; an empty account ID holds the all-account counts, spread over stripes
+CREATE TABLE order_counters (
+    account_id VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL CHECK (status IN ('PENDING', 'EXECUTED', 'FAILED', 'CANCELLED')),
+    stripe INTEGER NOT NULL,
+    order_count BIGINT NOT NULL,
+    PRIMARY KEY (account_id, status, stripe)
+);
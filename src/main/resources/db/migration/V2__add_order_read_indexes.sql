@@ -0,0 +1,12 @@
+-- Listing one account newest first, by keyset or offset. The included columns let the order
+-- side of the list queries be read from the index alone.
+CREATE INDEX idx_orders_account_created ON orders (account_id, created_at DESC, id DESC)
+    INCLUDE (symbol, side, quantity, status);
+
+-- Listing all orders newest first
+CREATE INDEX idx_orders_created ON orders (created_at DESC, id DESC)
+    INCLUDE (account_id, symbol, side, quantity, status);
+
+-- At most one execution per order; covers the execution side of the order joins
+CREATE UNIQUE INDEX idx_executions_order ON executions (order_id)
+    INCLUDE (id, price, executed_at);
@@ -0,0 +1,120 @@
+package com.zad.minimarket.aspect;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zad.minimarket.annotation.Idempotent;
+import com.zad.minimarket.dto.IdempotentResponse;
+import com.zad.minimarket.dto.OrderResponse;
+import com.zad.minimarket.service.IdempotencyService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyAspectTest {
+
+    private static final String KEY = "key-1";
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private Idempotent idempotent;
+
+    private MockHttpServletResponse servletResponse;
+
+    private IdempotencyAspect idempotencyAspect;
+
+    @BeforeEach
+    void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Idempotency-Key", KEY);
+        servletResponse = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, servletResponse));
+        when(idempotent.keyHeader()).thenReturn("X-Idempotency-Key");
+        idempotencyAspect = new IdempotencyAspect(idempotencyService, objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void should_StoreRenderedBodyAndStatus_When_OwnerSucceeds() throws Throwable {
+        // Given
+        OrderResponse order = new OrderResponse();
+        order.setId(42L);
+        when(idempotencyService.reserve(KEY)).thenReturn(IdempotencyService.Reservation.owned());
+        when(joinPoint.proceed()).thenReturn(ResponseEntity.status(HttpStatus.CREATED).body(order));
+
+        // When
+        Object result = idempotencyAspect.handleIdempotency(joinPoint, idempotent);
+
+        // Then
+        ArgumentCaptor<IdempotentResponse> stored = ArgumentCaptor.forClass(IdempotentResponse.class);
+        verify(idempotencyService).complete(any(), stored.capture());
+        assertThat(stored.getValue().status()).isEqualTo(201);
+        assertThat(stored.getValue().body()).isEqualTo(objectMapper.writeValueAsBytes(order));
+        ResponseEntity<?> response = (ResponseEntity<?>) result;
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getBody()).isSameAs(stored.getValue().body());
+    }
+
+    @Test
+    void should_ReplayStoredBytesWithOriginalStatus_When_KeyCompleted() throws Throwable {
+        // Given
+        byte[] body = "{\"id\":42}".getBytes(StandardCharsets.UTF_8);
+        when(idempotencyService.reserve(KEY))
+            .thenReturn(IdempotencyService.Reservation.completed(new IdempotentResponse(201, body)));
+
+        // When
+        Object result = idempotencyAspect.handleIdempotency(joinPoint, idempotent);
+
+        // Then
+        assertThat(result).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(201);
+        assertThat(servletResponse.getContentType()).isEqualTo("application/json");
+        assertThat(servletResponse.getContentAsByteArray()).isEqualTo(body);
+        verify(joinPoint, never()).proceed();
+    }
+
+    @Test
+    void should_ReleaseKey_When_HandlerFails() throws Throwable {
+        // Given
+        when(idempotencyService.reserve(KEY)).thenReturn(IdempotencyService.Reservation.owned());
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("boom"));
+
+        // When / Then
+        assertThatThrownBy(() -> idempotencyAspect.handleIdempotency(joinPoint, idempotent))
+            .isInstanceOf(IllegalStateException.class);
+        verify(idempotencyService).release(KEY);
+        verify(idempotencyService, never()).complete(any(), any());
+    }
+}
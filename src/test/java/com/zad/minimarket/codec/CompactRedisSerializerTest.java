@@ -0,0 +1,147 @@
+package com.zad.minimarket.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zad.minimarket.dto.ExecutionResponse;
+import com.zad.minimarket.dto.IdempotentResponse;
+import com.zad.minimarket.dto.OrderResponse;
+import com.zad.minimarket.dto.PriceResponse;
+import com.zad.minimarket.entity.OrderSide;
+import com.zad.minimarket.entity.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactRedisSerializerTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+
+    private final GenericJackson2JsonRedisSerializer legacyPriceSerializer = new GenericJackson2JsonRedisSerializer();
+
+    private final PriceResponseRedisSerializer priceSerializer = new PriceResponseRedisSerializer(legacyPriceSerializer);
+
+    private final OrderResponseRedisSerializer orderSerializer = new OrderResponseRedisSerializer(
+        new Jackson2JsonRedisSerializer<>(objectMapper, OrderResponse.class));
+
+    private final IdempotentResponseRedisSerializer idempotentSerializer =
+        new IdempotentResponseRedisSerializer(orderSerializer, objectMapper);
+
+    @Test
+    void should_RoundTripPrice_When_EncodedInBinary() {
+        PriceResponse price = new PriceResponse();
+        price.setSymbol("AAPL");
+        price.setPrice(210_550_000L);
+
+        byte[] bytes = priceSerializer.serialize(price);
+        PriceResponse result = priceSerializer.deserialize(bytes);
+
+        assertThat(result.getSymbol()).isEqualTo("AAPL");
+        assertThat(result.getPrice()).isEqualTo(210_550_000L);
+        assertThat(bytes.length).isLessThan(legacyPriceSerializer.serialize(price).length / 4);
+    }
+
+    @Test
+    void should_ReadLegacyJsonPrice_When_PayloadHasNoMagicByte() {
+        PriceResponse price = new PriceResponse();
+        price.setSymbol("MSFT");
+        price.setPrice(415_300_000L);
+
+        PriceResponse result = priceSerializer.deserialize(legacyPriceSerializer.serialize(price));
+
+        assertThat(result.getSymbol()).isEqualTo("MSFT");
+        assertThat(result.getPrice()).isEqualTo(415_300_000L);
+    }
+
+    @Test
+    void should_RoundTripOrderResponse_When_EncodedInBinary() {
+        OrderResponse order = orderResponse();
+
+        OrderResponse result = orderSerializer.deserialize(orderSerializer.serialize(order));
+
+        assertThat(result).usingRecursiveComparison().isEqualTo(order);
+    }
+
+    @Test
+    void should_RoundTripOrderResponse_When_OptionalFieldsMissing() {
+        OrderResponse order = new OrderResponse();
+        order.setId(7L);
+        order.setStatus(OrderStatus.FAILED);
+
+        OrderResponse result = orderSerializer.deserialize(orderSerializer.serialize(order));
+
+        assertThat(result).usingRecursiveComparison().isEqualTo(order);
+    }
+
+    @Test
+    void should_ReadLegacyJsonOrderResponse_When_StoredAsJsonString() throws Exception {
+        OrderResponse order = orderResponse();
+        byte[] legacy = objectMapper.writeValueAsString(order).getBytes(StandardCharsets.UTF_8);
+
+        OrderResponse result = orderSerializer.deserialize(legacy);
+
+        assertThat(result.getId()).isEqualTo(order.getId());
+        assertThat(result.getExecution().getPrice()).isEqualTo(order.getExecution().getPrice());
+        assertThat(orderSerializer.serialize(order).length).isLessThan(legacy.length / 2);
+    }
+
+    @Test
+    void should_RoundTripIdempotentResponse_When_EncodedInBinary() {
+        byte[] body = "{\"id\":10}".getBytes(StandardCharsets.UTF_8);
+
+        IdempotentResponse result = idempotentSerializer.deserialize(
+            idempotentSerializer.serialize(new IdempotentResponse(201, body)));
+
+        assertThat(result.status()).isEqualTo(201);
+        assertThat(result.body()).isEqualTo(body);
+    }
+
+    @Test
+    void should_RenderPreviousOrderResponse_When_StoredInPreviousFormat() throws Exception {
+        OrderResponse order = orderResponse();
+
+        IdempotentResponse fromBinary = idempotentSerializer.deserialize(orderSerializer.serialize(order));
+        IdempotentResponse fromJson = idempotentSerializer.deserialize(
+            objectMapper.writeValueAsString(order).getBytes(StandardCharsets.UTF_8));
+
+        assertThat(fromBinary.status()).isEqualTo(201);
+        assertThat(fromBinary.body()).isEqualTo(objectMapper.writeValueAsBytes(order));
+        assertThat(fromJson.body()).isEqualTo(fromBinary.body());
+    }
+
+    @Test
+    void should_ThrowSerializationException_When_VersionUnsupported() {
+        byte[] bytes = priceSerializer.serialize(new PriceResponse());
+        bytes[1] = (byte) (CompactRedisSerializer.FORMAT_VERSION + 1);
+
+        assertThatThrownBy(() -> priceSerializer.deserialize(bytes))
+            .isInstanceOf(SerializationException.class);
+    }
+
+    private OrderResponse orderResponse() {
+        ExecutionResponse execution = new ExecutionResponse();
+        execution.setId(11L);
+        execution.setOrderId(10L);
+        execution.setPrice(210_550_000L);
+        execution.setExecutedAt(LocalDateTime.of(2024, 1, 15, 10, 30, 1));
+
+        OrderResponse order = new OrderResponse();
+        order.setId(10L);
+        order.setAccountId("acc-123");
+        order.setSymbol("AAPL");
+        order.setSide(OrderSide.BUY);
+        order.setQuantity(new BigDecimal("10.500000"));
+        order.setStatus(OrderStatus.EXECUTED);
+        order.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+        order.setExecution(execution);
+        return order;
+    }
+}
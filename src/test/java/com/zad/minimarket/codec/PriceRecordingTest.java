@@ -0,0 +1,80 @@
+package com.zad.minimarket.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceRecordingTest {
+
+    @Test
+    void should_ReadBackTicks_When_RecordingWritten() throws IOException {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PriceRecordingWriter writer = new PriceRecordingWriter(out, 1_700_000_000_000L)) {
+            writer.write("AAPL", 1_700_000_000_010L, 210_550_000L);
+            writer.write("MSFT", 1_700_000_000_010L, 415_120_000L);
+            writer.write("AAPL", 1_700_000_000_250L, 210_540_000L);
+        }
+
+        // When
+        PriceRecording recording = PriceRecording.read(out.toByteArray());
+
+        // Then
+        assertThat(recording.size()).isEqualTo(3);
+        assertThat(recording.symbolCount()).isEqualTo(2);
+        assertThat(recording.symbol(recording.symbolId(1))).isEqualTo("MSFT");
+        assertThat(recording.timestamp(2)).isEqualTo(1_700_000_000_250L);
+        assertThat(recording.symbolId(2)).isEqualTo(recording.symbolId(0));
+        assertThat(recording.price(0)).isEqualTo(210_550_000L);
+        assertThat(recording.price(1)).isEqualTo(415_120_000L);
+        assertThat(recording.price(2)).isEqualTo(210_540_000L);
+    }
+
+    @Test
+    void should_DropPartialTick_When_RecordingTruncated() throws IOException {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PriceRecordingWriter writer = new PriceRecordingWriter(out, 0)) {
+            writer.write("AAPL", 5, 210_550_000L);
+            writer.write("GOOGL", 9, 175_000_000L);
+        }
+        byte[] bytes = out.toByteArray();
+
+        // When
+        PriceRecording recording = PriceRecording.read(Arrays.copyOf(bytes, bytes.length - 2));
+
+        // Then
+        assertThat(recording.size()).isEqualTo(1);
+        assertThat(recording.price(0)).isEqualTo(210_550_000L);
+    }
+
+    @Test
+    void should_DropNewSymbol_When_TruncatedInsideItsFirstPrice() throws IOException {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PriceRecordingWriter writer = new PriceRecordingWriter(out, 0)) {
+            writer.write("AAPL", 5, 210_550_000L);
+            writer.write("GOOGL", 9, 175_000_000L);
+        }
+        byte[] bytes = out.toByteArray();
+
+        // When - cut after the new symbol's name, inside its 5 byte price
+        PriceRecording recording = PriceRecording.read(Arrays.copyOf(bytes, bytes.length - 1));
+
+        // Then - no symbol is left without a tick
+        assertThat(recording.size()).isEqualTo(1);
+        assertThat(recording.symbolCount()).isEqualTo(1);
+        assertThat(recording.symbol(0)).isEqualTo("AAPL");
+    }
+
+    @Test
+    void should_Reject_When_NotARecording() {
+        assertThatThrownBy(() -> PriceRecording.read(new byte[]{1, 2, 3, 4, 5}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -2,10 +2,15 @@ package com.zad.minimarket.controller;
 
 import com.zad.minimarket.dto.CreateOrderRequest;
 import com.zad.minimarket.entity.OrderSide;
+import com.zad.minimarket.exception.ExportAbortedException;
+import com.zad.minimarket.exception.IdempotencyStoreFullException;
 import com.zad.minimarket.exception.OrderNotFoundException;
 import com.zad.minimarket.exception.PriceFeedException;
+import com.zad.minimarket.exception.PriceFeedUnavailableException;
 import com.zad.minimarket.exception.RateLimitExceededException;
+import com.zad.minimarket.service.OrderExportService;
 import com.zad.minimarket.service.OrderService;
+import com.zad.minimarket.service.RateLimitingService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -13,14 +18,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -34,12 +46,18 @@ class GlobalExceptionHandlerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private OrderExportService orderExportService;
+
+    @MockBean
+    private RateLimitingService rateLimitingService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @Test
     void should_Return404_When_OrderNotFoundExceptionThrown() throws Exception {
-        Mockito.when(orderService.getOrderById(anyLong()))
+        Mockito.when(orderService.getTaggedOrderById(anyLong()))
             .thenThrow(new OrderNotFoundException("Order with ID 1 not found"));
 
         mockMvc.perform(get("/orders/1"))
@@ -81,6 +99,25 @@ class GlobalExceptionHandlerTest {
             .andExpect(jsonPath("$.message").value("Invalid symbol"));
     }
 
+    @Test
+    void should_Return503_When_PriceFeedUnavailableExceptionThrown() throws Exception {
+        Mockito.when(orderService.createOrder(any()))
+            .thenThrow(new PriceFeedUnavailableException("Price feed unavailable for symbol: AAPL"));
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setSymbol("AAPL");
+        request.setQuantity(BigDecimal.TEN);
+        request.setSide(OrderSide.BUY);
+        request.setAccountId("test-acc");
+
+        mockMvc.perform(post("/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(jsonPath("$.status").value(503))
+            .andExpect(jsonPath("$.error").value("Price Feed Unavailable"));
+    }
+
     @Test
     void should_Return400_When_ValidationFails() throws Exception {
         // Missing required symbol field
@@ -114,6 +151,54 @@ class GlobalExceptionHandlerTest {
             .andExpect(jsonPath("$.message").value("Invalid account ID"));
     }
 
+    @Test
+    void should_Return503WithRetryAfter_When_IdempotencyStoreFull() throws Exception {
+        Mockito.when(orderService.getAllOrders(any()))
+            .thenThrow(new IdempotencyStoreFullException("Too many requests in progress, retry later", 1_500));
+
+        mockMvc.perform(get("/orders"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "2"))
+            .andExpect(jsonPath("$.status").value(503))
+            .andExpect(jsonPath("$.error").value("Idempotency Store Full"));
+    }
+
+    @Test
+    void should_Return400_When_ExportFormatUnsupported() throws Exception {
+        mockMvc.perform(get("/orders/export?accountId=acc123&format=xml"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.status").value(400))
+            .andExpect(jsonPath("$.message").value("Unsupported export format: xml"));
+    }
+
+    @Test
+    void should_AbortStream_When_ExportFailsAfterResponseCommitted() throws Exception {
+        // Given
+        Mockito.when(orderExportService.export(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(4);
+            out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            throw new DataAccessResourceFailureException("Connection lost");
+        });
+
+        // When / Then
+        assertThatThrownBy(() -> mockMvc.perform(get("/orders/export?accountId=acc123")))
+            .hasCauseInstanceOf(ExportAbortedException.class)
+            .hasRootCauseInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void should_Return500AsJson_When_ExportFailsBeforeResponseCommitted() throws Exception {
+        Mockito.when(orderExportService.export(any(), any(), any(), any(), any()))
+            .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        mockMvc.perform(get("/orders/export?accountId=acc123"))
+            .andExpect(status().isInternalServerError())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION))
+            .andExpect(jsonPath("$.status").value(500));
+    }
+
     @Test
     void should_Return500_When_GenericExceptionThrown() throws Exception {
         Mockito.when(orderService.getAllOrders(any()))
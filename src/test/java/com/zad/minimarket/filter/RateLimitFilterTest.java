@@ -0,0 +1,164 @@
+package com.zad.minimarket.filter;
+
+import com.zad.minimarket.service.RateLimitingService;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitFilterTest {
+
+    private static final String BODY =
+        "{\"accountId\" : \"acc-123\", \"symbol\":\"AAPL\", \"side\":\"BUY\", \"quantity\":10}";
+
+    @Mock
+    private RateLimitingService rateLimitingService;
+
+    private RateLimitFilter filter;
+
+    private MockHttpServletResponse response;
+
+    private MockFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitFilter(rateLimitingService, "X-Account-Id", 4096);
+        response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+    }
+
+    @Test
+    void should_RejectWithRetryAfter_When_LimitExceeded() throws Exception {
+        // Given
+        when(rateLimitingService.tryConsume("acc-123", "AAPL"))
+            .thenReturn(new RateLimitingService.Decision(RateLimitingService.Level.SYMBOL, 1_500L));
+
+        // When
+        filter.doFilter(orderRequest(), response, chain);
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(response.getContentAsString()).startsWith("{\"status\":429,\"error\":\"Rate Limit Exceeded\"");
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void should_ForwardBodyAndMarkCharged_When_AccountFoundInBody() throws Exception {
+        // Given
+        when(rateLimitingService.tryConsume("acc-123", "AAPL")).thenReturn(RateLimitingService.Decision.ALLOWED);
+
+        // When
+        filter.doFilter(orderRequest(), response, chain);
+
+        // Then
+        assertThat(chain.getRequest().getAttribute(RateLimitingService.CHARGED_ACCOUNT_ATTRIBUTE)).isEqualTo("acc-123");
+        assertThat(new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8))
+            .isEqualTo(BODY);
+    }
+
+    @Test
+    void should_NotifyReadListener_When_BodyReadAsynchronously() throws Exception {
+        // Given
+        when(rateLimitingService.tryConsume("acc-123", "AAPL")).thenReturn(RateLimitingService.Decision.ALLOWED);
+        filter.doFilter(orderRequest(), response, chain);
+        ServletInputStream in = chain.getRequest().getInputStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        List<String> events = new ArrayList<>();
+
+        // When
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (in.isReady() && !in.isFinished()) {
+                    body.write(in.read());
+                }
+                events.add("data");
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        // Then
+        assertThat(events).containsExactly("data", "done");
+        assertThat(body.toString(StandardCharsets.UTF_8)).isEqualTo(BODY);
+    }
+
+    @Test
+    void should_PreferHeader_When_AccountHeaderPresent() throws Exception {
+        // Given
+        MockHttpServletRequest request = orderRequest();
+        request.addHeader("X-Account-Id", "acc-header");
+        when(rateLimitingService.tryConsume("acc-header", "AAPL")).thenReturn(RateLimitingService.Decision.ALLOWED);
+
+        // When
+        filter.doFilter(request, response, chain);
+
+        // Then
+        assertThat(chain.getRequest().getAttribute(RateLimitingService.CHARGED_ACCOUNT_ATTRIBUTE))
+            .isEqualTo("acc-header");
+    }
+
+    @Test
+    void should_LeaveCheckToService_When_AccountNotFound() throws Exception {
+        // Given
+        MockHttpServletRequest request = orderRequest();
+        request.setContent("{\"accountId\":\"acc\\u0031\"}".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        filter.doFilter(request, response, chain);
+
+        // Then
+        verify(rateLimitingService, never()).tryConsume(anyString(), anyString());
+        assertThat(chain.getRequest().getAttribute(RateLimitingService.CHARGED_ACCOUNT_ATTRIBUTE)).isNull();
+    }
+
+    @Test
+    void should_SkipFilter_When_NotOrderCreation() throws Exception {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders");
+        request.setServletPath("/orders");
+
+        // When
+        filter.doFilter(request, response, chain);
+
+        // Then
+        verify(rateLimitingService, never()).tryConsume(anyString(), anyString());
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    private static MockHttpServletRequest orderRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/orders");
+        request.setServletPath("/orders");
+        request.setContentType("application/json");
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -80,7 +80,7 @@ class OrderIntegrationTest {
 
     @AfterEach
     void cleanup() {
-        JdbcTestUtils.deleteFromTables(jdbcTemplate, "orders", "executions");
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "executions", "orders", "order_counters");
     }
 
     @BeforeAll
@@ -0,0 +1,123 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ClusterPriceTableTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private PriceTickListener priceTickListener;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    private ClusterPriceTable clusterPriceTable;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        clusterPriceTable = new ClusterPriceTable(redisTemplate, List.of(priceTickListener), 3000, 60_000, 100, clock::get);
+    }
+
+    @Test
+    void should_ServeBroadcastPrice_When_Fresh() {
+        // Given
+        broadcast("other-node", "AAPL", clock.get(), 210_550_000L);
+
+        // When
+        PriceResponse result = clusterPriceTable.getPrice("AAPL");
+
+        // Then
+        assertThat(result.getPrice()).isEqualTo(210_550_000L);
+        verify(priceTickListener).onTick("AAPL", clock.get(), 210_550_000L);
+        verify(zSetOperations).add(ClusterPriceTable.ACTIVE_SYMBOLS_KEY, "AAPL", clock.get());
+    }
+
+    @Test
+    void should_ReturnNull_When_BroadcastPriceIsStale() {
+        // Given
+        broadcast("other-node", "AAPL", clock.get(), 210_550_000L);
+        clock.addAndGet(3001);
+
+        // When / Then
+        assertThat(clusterPriceTable.getPrice("AAPL")).isNull();
+    }
+
+    @Test
+    void should_KeepNewestPrice_When_BroadcastsArriveOutOfOrder() {
+        // Given
+        broadcast("other-node", "AAPL", clock.get(), 210_550_000L);
+
+        // When
+        broadcast("other-node", "AAPL", clock.get() - 1, 209_000_000L);
+
+        // Then
+        assertThat(clusterPriceTable.getPrice("AAPL").getPrice()).isEqualTo(210_550_000L);
+        verify(priceTickListener, never()).onTick("AAPL", clock.get() - 1, 209_000_000L);
+    }
+
+    @Test
+    void should_NotNotifyListeners_When_BroadcastCameFromThisNode() {
+        // When
+        broadcast(clusterPriceTable.getNodeId(), "AAPL", clock.get(), 210_550_000L);
+
+        // Then
+        verify(priceTickListener, never()).onTick(anyString(), anyLong(), anyLong());
+        assertThat(clusterPriceTable.getPrice("AAPL").getPrice()).isEqualTo(210_550_000L);
+    }
+
+    @Test
+    void should_RegisterActiveSymbolOnce_When_MarkedRepeatedly() {
+        // When
+        clusterPriceTable.markActive("MSFT");
+        clock.addAndGet(1000);
+        clusterPriceTable.markActive("MSFT");
+
+        // Then
+        verify(zSetOperations, times(1)).add(eq(ClusterPriceTable.ACTIVE_SYMBOLS_KEY), eq("MSFT"), anyDouble());
+        verify(zSetOperations).removeRange(ClusterPriceTable.ACTIVE_SYMBOLS_KEY, 0, -101);
+    }
+
+    @Test
+    void should_NotRegisterSymbol_When_LookedUpWithoutPrice() {
+        // When
+        assertThat(clusterPriceTable.getPrice("JUNK")).isNull();
+
+        // Then
+        verifyNoInteractions(zSetOperations);
+    }
+
+    private void broadcast(String nodeId, String symbol, long timestamp, long price) {
+        String body = nodeId + '|' + symbol + '|' + timestamp + '|' + price;
+        clusterPriceTable.onMessage(new DefaultMessage(ClusterPriceTable.CHANNEL.getBytes(StandardCharsets.UTF_8),
+            body.getBytes(StandardCharsets.UTF_8)), null);
+    }
+}
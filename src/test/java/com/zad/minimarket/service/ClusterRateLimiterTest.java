@@ -0,0 +1,102 @@
+package com.zad.minimarket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ClusterRateLimiterTest {
+
+    private static final List<String> KEYS = List.of(ClusterRateLimiter.KEY_PREFIX + "acc-1");
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisAvailabilityService redisAvailabilityService;
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    private ClusterRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisAvailabilityService.execute(any(), any()))
+            .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        limiter = new ClusterRateLimiter(redisTemplate, redisAvailabilityService, 10, 10, 3, 250, 100,
+            new SimpleMeterRegistry(), clock::get);
+    }
+
+    @Test
+    void should_SpendLeasedTokensLocally_When_LeaseGranted() {
+        // Given
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), eq("10"), eq("0.01"), eq("3"), eq("0")))
+            .thenReturn(List.of(3L, 0L));
+
+        // When / Then
+        assertThat(limiter.tryConsume("acc-1", () -> 1L)).isZero();
+        assertThat(limiter.tryConsume("acc-1", () -> 1L)).isZero();
+        assertThat(limiter.tryConsume("acc-1", () -> 1L)).isZero();
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), eq(KEYS), any(), any(), any(), any());
+    }
+
+    @Test
+    void should_ReturnUnspentTokens_When_LeaseExpired() {
+        // Given
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), eq("10"), eq("0.01"), eq("3"), any()))
+            .thenReturn(List.of(3L, 0L));
+        limiter.tryConsume("acc-1", () -> 1L);
+
+        // When
+        clock.addAndGet(250);
+        limiter.tryConsume("acc-1", () -> 1L);
+
+        // Then
+        verify(redisTemplate).execute(any(RedisScript.class), eq(KEYS), eq("10"), eq("0.01"), eq("3"), eq("2"));
+    }
+
+    @Test
+    void should_RejectLocallyUntilNextToken_When_SharedBucketEmpty() {
+        // Given
+        when(redisTemplate.execute(any(RedisScript.class), eq(KEYS), any(), any(), any(), any()))
+            .thenReturn(List.of(0L, 100L));
+
+        // When / Then
+        assertThat(limiter.tryConsume("acc-1", () -> 0L)).isEqualTo(100);
+        clock.addAndGet(99);
+        assertThat(limiter.tryConsume("acc-1", () -> 0L)).isEqualTo(1);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), eq(KEYS), any(), any(), any(), any());
+        clock.addAndGet(1);
+        assertThat(limiter.tryConsume("acc-1", () -> 0L)).isEqualTo(100);
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class), eq(KEYS), any(), any(), any(), any());
+    }
+
+    @Test
+    void should_UseFallback_When_RedisUnavailable() {
+        // Given
+        doAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get())
+            .when(redisAvailabilityService).execute(any(), any());
+
+        // When / Then
+        assertThat(limiter.tryConsume("acc-1", () -> 0L)).isZero();
+        assertThat(limiter.tryConsume("acc-1", () -> 500L)).isEqualTo(500);
+    }
+}
@@ -0,0 +1,85 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.IdempotentResponse;
+import com.zad.minimarket.exception.IdempotencyConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private RedisTemplate<String, IdempotentResponse> redisTemplate;
+
+    @Mock
+    private RedisAvailabilityService redisAvailabilityService;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        // Redis is unavailable, so reservations use the local store
+        lenient().when(redisAvailabilityService.execute(any(), any()))
+            .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+        lenient().doNothing().when(redisAvailabilityService).run(any());
+        idempotencyService = new IdempotencyService(new RedisIdempotencyStore(redisTemplate, redisAvailabilityService, 100), 500);
+    }
+
+    @Test
+    void should_WaitForOwnerResponse_When_KeyInFlight() throws Exception {
+        // Given
+        assertThat(idempotencyService.reserve("key-1").owner()).isTrue();
+        CompletableFuture<IdempotencyService.Reservation> duplicate =
+            CompletableFuture.supplyAsync(() -> idempotencyService.reserve("key-1"));
+
+        // When
+        Thread.sleep(50);
+        assertThat(duplicate).isNotDone();
+        idempotencyService.complete("key-1", new IdempotentResponse(201, "{\"id\":42}".getBytes(StandardCharsets.UTF_8)));
+
+        // Then
+        IdempotencyService.Reservation reservation = duplicate.get(2, TimeUnit.SECONDS);
+        assertThat(reservation.owner()).isFalse();
+        assertThat(reservation.response().status()).isEqualTo(201);
+        assertThat(new String(reservation.response().body(), StandardCharsets.UTF_8)).isEqualTo("{\"id\":42}");
+    }
+
+    @Test
+    void should_HandOverKey_When_OwnerReleases() throws Exception {
+        // Given
+        idempotencyService.reserve("key-2");
+        CompletableFuture<IdempotencyService.Reservation> duplicate =
+            CompletableFuture.supplyAsync(() -> idempotencyService.reserve("key-2"));
+        Thread.sleep(50);
+
+        // When
+        idempotencyService.release("key-2");
+
+        // Then
+        assertThat(duplicate.get(2, TimeUnit.SECONDS).owner()).isTrue();
+    }
+
+    @Test
+    void should_ThrowConflict_When_OwnerDoesNotFinishInTime() {
+        // Given
+        idempotencyService.reserve("key-3");
+
+        // When / Then
+        assertThatThrownBy(() -> idempotencyService.reserve("key-3"))
+            .isInstanceOf(IdempotencyConflictException.class);
+    }
+}
@@ -0,0 +1,249 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.IdempotentResponse;
+import com.zad.minimarket.exception.IdempotencyConflictException;
+import com.zad.minimarket.exception.IdempotencyStoreFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedIdempotencyStoreTest {
+
+    private static final Duration IN_FLIGHT_TTL = Duration.ofSeconds(30);
+    private static final Duration TTL = Duration.ofHours(24);
+
+    @TempDir
+    private Path directory;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    private MappedIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = open(64);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void should_ReturnStoredResponse_When_KeyCompleted() {
+        // Given
+        assertThat(store.reserve("key-1", IN_FLIGHT_TTL).owner()).isTrue();
+        assertThat(store.reserve("key-1", IN_FLIGHT_TTL).isInFlight()).isTrue();
+
+        // When
+        store.complete("key-1", response(42L), TTL);
+
+        // Then
+        IdempotencyService.Reservation reservation = store.reserve("key-1", IN_FLIGHT_TTL);
+        assertThat(reservation.owner()).isFalse();
+        assertThat(reservation.response().status()).isEqualTo(201);
+        assertThat(reservation.response().body()).isEqualTo(response(42L).body());
+    }
+
+    @Test
+    void should_ReleaseKey_When_OwnerFails() {
+        // Given
+        store.reserve("key-2", IN_FLIGHT_TTL);
+
+        // When
+        store.release("key-2");
+
+        // Then
+        assertThat(store.reserve("key-2", IN_FLIGHT_TTL).owner()).isTrue();
+    }
+
+    @Test
+    void should_ReuseKey_When_Expired() {
+        // Given
+        store.reserve("key-3", IN_FLIGHT_TTL);
+        store.complete("key-3", response(3L), Duration.ofSeconds(1));
+
+        // When
+        clock.addAndGet(1_001);
+
+        // Then
+        assertThat(store.reserve("key-3", IN_FLIGHT_TTL).owner()).isTrue();
+    }
+
+    @Test
+    void should_KeepCompletedKeysAndDropInFlight_When_Reopened() throws IOException {
+        // Given
+        store.reserve("done", IN_FLIGHT_TTL);
+        store.complete("done", response(7L), TTL);
+        store.reserve("pending", IN_FLIGHT_TTL);
+
+        // When
+        store.close();
+        store = open(64);
+
+        // Then
+        assertThat(store.reserve("done", IN_FLIGHT_TTL).response().body()).isEqualTo(response(7L).body());
+        assertThat(store.reserve("pending", IN_FLIGHT_TTL).owner()).isTrue();
+    }
+
+    @Test
+    void should_StartEmpty_When_CapacityChanged() throws IOException {
+        // Given
+        store.reserve("done", IN_FLIGHT_TTL);
+        store.complete("done", response(7L), TTL);
+
+        // When
+        store.close();
+        store = open(128);
+
+        // Then
+        assertThat(store.reserve("done", IN_FLIGHT_TTL).owner()).isTrue();
+    }
+
+    @Test
+    void should_StartEmpty_When_VersionChanged() throws IOException {
+        // Given: a file of the same size written by another version
+        store.reserve("done", IN_FLIGHT_TTL);
+        store.complete("done", response(7L), TTL);
+        store.close();
+        writeVersion(99);
+
+        // When
+        store = open(64);
+
+        // Then
+        assertThat(store.reserve("done", IN_FLIGHT_TTL).owner()).isTrue();
+    }
+
+    @Test
+    void should_DropEveryKey_When_ReopeningVersion1File() throws IOException {
+        // Given: completed keys in a file with a version 1 header, whose slots had no status field
+        for (int i = 0; i < 16; i++) {
+            store.reserve("key-" + i, IN_FLIGHT_TTL);
+            store.complete("key-" + i, response(i), TTL);
+        }
+        store.close();
+        writeVersion(1);
+
+        // When
+        store = open(64);
+
+        // Then: nothing is read back with the version 2 offsets
+        for (int i = 0; i < 16; i++) {
+            assertThat(store.reserve("key-" + i, IN_FLIGHT_TTL).owner()).isTrue();
+        }
+    }
+
+    @Test
+    void should_RejectKey_When_LongerThanKeyBudget() {
+        // Given
+        String longKey = "k".repeat(MappedIdempotencyStore.MAX_KEY_BYTES + 1);
+
+        // When / Then
+        assertThatThrownBy(() -> store.reserve(longKey, IN_FLIGHT_TTL))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Idempotency key");
+        assertThat(store.reserve("k".repeat(MappedIdempotencyStore.MAX_KEY_BYTES), IN_FLIGHT_TTL).owner()).isTrue();
+    }
+
+    @Test
+    void should_RefuseToStart_When_SlotCannotHoldLargestKeyAndResponse() {
+        assertThatThrownBy(() -> new MappedIdempotencyStore(directory.resolve("small.bin"), 64, 512, 400, clock::get))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("slot size");
+    }
+
+    @Test
+    void should_KeepCompletedKeyWithoutBody_When_ResponseTooLarge() {
+        // Given
+        String key = "k".repeat(MappedIdempotencyStore.MAX_KEY_BYTES);
+        store.reserve(key, IN_FLIGHT_TTL);
+
+        // When
+        store.complete(key, new IdempotentResponse(201, new byte[512]), TTL);
+
+        // Then: duplicates are turned away instead of running the order again
+        assertThatThrownBy(() -> store.reserve(key, IN_FLIGHT_TTL))
+            .isInstanceOf(IdempotencyConflictException.class);
+    }
+
+    @Test
+    void should_StoreResponse_When_ReservationLostInBucketFullOfInFlightKeys() throws IOException {
+        // Given: a single bucket whose expired reservation was taken by other in-flight keys
+        store.close();
+        store = open(MappedIdempotencyStore.WAYS);
+        store.reserve("slow", Duration.ofSeconds(1));
+        clock.addAndGet(2_000);
+        for (int i = 0; i < MappedIdempotencyStore.WAYS; i++) {
+            store.reserve("key-" + i, IN_FLIGHT_TTL);
+        }
+
+        // When
+        store.complete("slow", response(9L), TTL);
+
+        // Then
+        assertThat(store.reserve("slow", IN_FLIGHT_TTL).response().body()).isEqualTo(response(9L).body());
+    }
+
+    @Test
+    void should_EvictEarliestExpiringCompletedKey_When_Full() throws IOException {
+        // Given: a single bucket
+        store.close();
+        store = open(MappedIdempotencyStore.WAYS);
+        for (int i = 0; i < MappedIdempotencyStore.WAYS; i++) {
+            store.reserve("key-" + i, IN_FLIGHT_TTL);
+            store.complete("key-" + i, response(i), TTL.plusSeconds(i));
+        }
+
+        // When
+        assertThat(store.reserve("key-new", IN_FLIGHT_TTL).owner()).isTrue();
+
+        // Then
+        assertThat(store.reserve("key-0", IN_FLIGHT_TTL).owner()).isTrue();
+        assertThat(store.reserve("key-7", IN_FLIGHT_TTL).response().body()).isEqualTo(response(7L).body());
+    }
+
+    @Test
+    void should_RejectUntilFirstExpiry_When_BucketFullOfInFlightKeys() throws IOException {
+        // Given
+        store.close();
+        store = open(MappedIdempotencyStore.WAYS);
+        for (int i = 0; i < MappedIdempotencyStore.WAYS; i++) {
+            store.reserve("key-" + i, IN_FLIGHT_TTL);
+            clock.addAndGet(1_000);
+        }
+
+        // When / Then
+        assertThatThrownBy(() -> store.reserve("key-new", IN_FLIGHT_TTL))
+            .isInstanceOf(IdempotencyStoreFullException.class)
+            .extracting(e -> ((IdempotencyStoreFullException) e).getRetryAfterMillis())
+            .isEqualTo(IN_FLIGHT_TTL.toMillis() - MappedIdempotencyStore.WAYS * 1_000L);
+    }
+
+    private MappedIdempotencyStore open(int capacity) throws IOException {
+        return new MappedIdempotencyStore(directory.resolve("idempotency.bin"), capacity, 512, 256, clock::get);
+    }
+
+    private void writeVersion(int version) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve("idempotency.bin"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, version), 4);
+        }
+    }
+
+    private static IdempotentResponse response(long id) {
+        return new IdempotentResponse(201, ("{\"id\":" + id + "}").getBytes(StandardCharsets.UTF_8));
+    }
+}
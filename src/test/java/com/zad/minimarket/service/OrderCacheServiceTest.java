@@ -0,0 +1,131 @@
+package com.zad.minimarket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zad.minimarket.dto.OrderResponse;
+import com.zad.minimarket.entity.OrderSide;
+import com.zad.minimarket.entity.OrderStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderCacheServiceTest {
+
+    @Mock
+    private RedisTemplate<String, OrderResponse> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, OrderResponse> valueOperations;
+
+    @Mock
+    private RedisAvailabilityService redisAvailabilityService;
+
+    private OrderCacheService orderCacheService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        lenient().when(redisAvailabilityService.execute(any(), any()))
+            .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+        lenient().doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(redisAvailabilityService).run(any());
+        orderCacheService = new OrderCacheService(redisTemplate, redisAvailabilityService,
+            new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry(), 100, 60_000, 3_600_000);
+    }
+
+    @Test
+    void should_ServeFromLocalTier_When_FinalOrderCached() {
+        // Given
+        OrderResponse order = order(OrderStatus.EXECUTED);
+        OrderCacheService.TaggedOrder stored = orderCacheService.put(order);
+
+        // When
+        OrderCacheService.TaggedOrder cached = orderCacheService.get(1L);
+
+        // Then
+        assertThat(cached).isSameAs(stored);
+        assertThat(cached.etag()).matches("\"[0-9a-f]{32}\"");
+        verify(valueOperations).set("order:1", order, Duration.ofHours(1));
+        verify(valueOperations, never()).get(any());
+    }
+
+    @Test
+    void should_FillLocalTierFromRedis_When_OnlyRedisHasOrder() {
+        // Given
+        OrderResponse order = order(OrderStatus.FAILED);
+        when(valueOperations.get("order:1")).thenReturn(order);
+
+        // When
+        OrderCacheService.TaggedOrder first = orderCacheService.get(1L);
+        OrderCacheService.TaggedOrder second = orderCacheService.get(1L);
+
+        // Then
+        assertThat(first.order()).isSameAs(order);
+        assertThat(second).isSameAs(first);
+        assertThat(first.etag()).isEqualTo(orderCacheService.put(order(OrderStatus.FAILED)).etag());
+        verify(valueOperations, times(1)).get("order:1");
+    }
+
+    @Test
+    void should_TagButNotCache_When_OrderNotFinal() {
+        // Given
+        OrderResponse order = order(OrderStatus.PENDING);
+
+        // When
+        OrderCacheService.TaggedOrder tagged = orderCacheService.put(order);
+
+        // Then
+        assertThat(tagged.etag()).isNotNull();
+        assertThat(orderCacheService.get(1L)).isNull();
+        verify(valueOperations, never()).set(any(), any(), any(Duration.class));
+    }
+
+    @Test
+    void should_CacheStoredPrecision_When_CompletedOrderPut() {
+        // Given
+        OrderResponse order = order(OrderStatus.EXECUTED);
+        order.setQuantity(BigDecimal.TEN);
+        order.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30, 59, 999_999_600));
+
+        // When
+        orderCacheService.putAfterCommit(order);
+
+        // Then
+        ArgumentCaptor<OrderResponse> cached = ArgumentCaptor.forClass(OrderResponse.class);
+        verify(valueOperations).set(eq("order:1"), cached.capture(), eq(Duration.ofHours(1)));
+        assertThat(cached.getValue().getQuantity()).isEqualTo(new BigDecimal("10.000000"));
+        assertThat(cached.getValue().getCreatedAt()).isEqualTo(LocalDateTime.of(2024, 1, 15, 10, 31));
+        assertThat(order.getQuantity()).isEqualTo(BigDecimal.TEN);
+    }
+
+    private static OrderResponse order(OrderStatus status) {
+        OrderResponse order = new OrderResponse();
+        order.setId(1L);
+        order.setAccountId("acc-123");
+        order.setSymbol("AAPL");
+        order.setSide(OrderSide.BUY);
+        order.setQuantity(new BigDecimal("10.000000"));
+        order.setStatus(status);
+        order.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+        return order;
+    }
+}
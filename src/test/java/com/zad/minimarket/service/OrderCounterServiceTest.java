@@ -0,0 +1,111 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.entity.Order;
+import com.zad.minimarket.entity.OrderStatus;
+import com.zad.minimarket.repository.OrderCounterRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderCounterServiceTest {
+
+    @Mock
+    private OrderCounterRepository orderCounterRepository;
+
+    private OrderCounterService orderCounterService;
+
+    @BeforeEach
+    void setUp() {
+        orderCounterService = new OrderCounterService(orderCounterRepository);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void should_WriteNetChangesBeforeCommit_When_OrderCreatedAndExecuted() {
+        // Given
+        Order order = order("acc-123", OrderStatus.PENDING);
+        orderCounterService.recordCreated(order);
+        order.setStatus(OrderStatus.EXECUTED);
+        orderCounterService.recordStatusChange(order, OrderStatus.PENDING);
+        verifyNoInteractions(orderCounterRepository);
+
+        // When
+        commit();
+
+        // Then
+        InOrder inOrder = inOrder(orderCounterRepository);
+        inOrder.verify(orderCounterRepository).add("acc-123", "EXECUTED", 0, 1);
+        inOrder.verify(orderCounterRepository).add(eq(OrderCounterService.ALL_ACCOUNTS), eq("EXECUTED"), anyInt(), eq(1L));
+        verify(orderCounterRepository, never()).add(anyString(), eq("PENDING"), anyInt(), anyLong());
+        assertThat(TransactionSynchronizationManager.hasResource(orderCounterService)).isFalse();
+    }
+
+    @Test
+    void should_UpdateAccountsBeforeAllAccountCounters_When_SeveralAccountsChanged() {
+        // Given
+        orderCounterService.recordCreated(order("acc-2", OrderStatus.PENDING));
+        orderCounterService.recordCreated(order("acc-1", OrderStatus.PENDING));
+
+        // When
+        commit();
+
+        // Then
+        InOrder inOrder = inOrder(orderCounterRepository);
+        inOrder.verify(orderCounterRepository).add("acc-1", "PENDING", 0, 1);
+        inOrder.verify(orderCounterRepository).add("acc-2", "PENDING", 0, 1);
+        inOrder.verify(orderCounterRepository).add(eq(OrderCounterService.ALL_ACCOUNTS), eq("PENDING"), anyInt(), eq(2L));
+    }
+
+    @Test
+    void should_ReturnEveryStatus_When_CountsRead() {
+        // Given
+        when(orderCounterRepository.sumByStatus(OrderCounterService.ALL_ACCOUNTS))
+            .thenReturn(List.<Object[]>of(new Object[]{"EXECUTED", 7L}, new Object[]{"FAILED", 2L}));
+
+        // When
+        Map<OrderStatus, Long> counts = orderCounterService.getCounts(null);
+
+        // Then
+        assertThat(counts).containsEntry(OrderStatus.EXECUTED, 7L)
+            .containsEntry(OrderStatus.FAILED, 2L)
+            .containsEntry(OrderStatus.PENDING, 0L)
+            .containsEntry(OrderStatus.CANCELLED, 0L);
+        assertThat(orderCounterService.getTotal(null)).isEqualTo(9L);
+    }
+
+    private static Order order(String accountId, OrderStatus status) {
+        Order order = new Order();
+        order.setAccountId(accountId);
+        order.setStatus(status);
+        return order;
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+    }
+}
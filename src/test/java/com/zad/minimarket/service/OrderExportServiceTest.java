@@ -0,0 +1,135 @@
+package com.zad.minimarket.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderExportServiceTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_000);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private OrderExportService orderExportService;
+
+    @BeforeEach
+    void setUp() {
+        orderExportService = new OrderExportService(jdbcTemplate,
+            new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry(), 500);
+    }
+
+    @Test
+    void should_ReadThroughForwardOnlyCursor_When_Exporting() throws Exception {
+        // Given
+        LocalDateTime from = CREATED_AT.minusDays(1);
+        LocalDateTime to = CREATED_AT.plusDays(1);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        doAnswer(invocation -> {
+            ((PreparedStatementCreator) invocation.getArgument(0)).createPreparedStatement(connection);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        // When
+        long rows = orderExportService.export("acc-123", from, to, OrderExportService.Format.NDJSON,
+            new ByteArrayOutputStream());
+
+        // Then
+        assertThat(rows).isZero();
+        verify(connection).prepareStatement(OrderExportService.EXPORT_SQL,
+            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        verify(statement).setFetchSize(500);
+        verify(statement).setString(1, "acc-123");
+        verify(statement).setTimestamp(2, Timestamp.valueOf(from));
+        verify(statement).setTimestamp(3, Timestamp.valueOf(to));
+    }
+
+    @Test
+    void should_WriteOneJsonLinePerRow_When_ExportingNdjson() throws Exception {
+        // Given
+        givenRows();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = orderExportService.export("acc-123", null, null, OrderExportService.Format.NDJSON, out);
+
+        // Then
+        assertThat(rows).isEqualTo(2);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0])
+            .contains("\"id\":1", "\"status\":\"EXECUTED\"", "\"createdAt\":\"2024-01-15T10:30:00.123456\"")
+            .contains("\"executedAt\":\"2024-01-15T10:30:01.123456\"")
+            .contains("\"execution\":{\"id\":10,\"orderId\":1,\"price\":210.550000");
+        assertThat(lines[1]).startsWith("{").contains("\"id\":2", "\"status\":\"FAILED\"", "\"execution\":null");
+    }
+
+    @Test
+    void should_QuoteFieldsWithSeparators_When_ExportingCsv() throws Exception {
+        // Given
+        givenRows();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        orderExportService.export("acc-123", null, null, OrderExportService.Format.CSV, out);
+
+        // Then
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+            "id,accountId,symbol,side,quantity,status,createdAt,executionId,price,executedAt\n"
+                + "1,acc-123,AAPL,BUY,10.000000,EXECUTED,2024-01-15T10:30:00.123456,10,210.550000,2024-01-15T10:30:01.123456\n"
+                + "2,acc-123,\"A,\"\"B\",SELL,5.000000,FAILED,2024-01-15T10:30:00.123456,,,\n");
+    }
+
+    private void givenRows() throws Exception {
+        when(resultSet.getLong("orderId")).thenReturn(1L, 2L);
+        when(resultSet.getString("accountId")).thenReturn("acc-123");
+        when(resultSet.getString("symbol")).thenReturn("AAPL", "A,\"B");
+        when(resultSet.getString("side")).thenReturn("BUY", "SELL");
+        when(resultSet.getBigDecimal("quantity")).thenReturn(new BigDecimal("10.000000"), new BigDecimal("5.000000"));
+        when(resultSet.getString("status")).thenReturn("EXECUTED", "FAILED");
+        when(resultSet.getObject("createdAt", LocalDateTime.class)).thenReturn(CREATED_AT);
+        when(resultSet.getLong("executionId")).thenReturn(10L, 0L);
+        when(resultSet.wasNull()).thenReturn(false, true);
+        lenient().when(resultSet.getBigDecimal("price")).thenReturn(new BigDecimal("210.550000"));
+        lenient().when(resultSet.getObject("executedAt", LocalDateTime.class)).thenReturn(CREATED_AT.plusSeconds(1));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(resultSet);
+            handler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+}
@@ -17,13 +17,16 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -51,6 +54,12 @@ class OrderServiceTest {
     @Mock
     private OrderMapper orderMapper;
 
+    @Mock
+    private OrderCounterService orderCounterService;
+
+    @Mock
+    private OrderCacheService orderCacheService;
+
     @Mock
     private MeterRegistry meterRegistry;
 
@@ -75,6 +84,8 @@ class OrderServiceTest {
             priceFeedService,
             rateLimitingService,
             orderMapper,
+            orderCounterService,
+            orderCacheService,
             meterRegistry
         ));
 
@@ -115,14 +126,14 @@ class OrderServiceTest {
 
         // Setup price response
         priceResponse = new PriceResponse();
-        priceResponse.setPrice(BigDecimal.valueOf(210.55));
+        priceResponse.setPrice(210_550_000L);
         priceResponse.setSymbol("AAPL");
 
         // Setup execution response
         executionResponse = new ExecutionResponse();
         executionResponse.setId(1L);
         executionResponse.setOrderId(1L);
-        executionResponse.setPrice(BigDecimal.valueOf(210.55));
+        executionResponse.setPrice(210_550_000L);
         executionResponse.setExecutedAt(LocalDateTime.now());
 
         // Setup order response
@@ -149,7 +160,7 @@ class OrderServiceTest {
             .thenReturn(savedOrder)
             .thenReturn(savedOrder);
 
-        when(executionService.saveExecution(1L, BigDecimal.valueOf(210.55)))
+        when(executionService.saveExecution(1L, 210_550_000L))
             .thenReturn(executionResponse);
 
         when(orderMapper.toOrderResponse(savedOrder, executionResponse))
@@ -166,12 +177,15 @@ class OrderServiceTest {
         assertThat(result.getAccountId()).isEqualTo(accountId);
 
         // Verify all interactions
-        verify(rateLimitingService).checkRateLimit(accountId);
+        verify(rateLimitingService).checkRateLimit(accountId, symbol);
         verify(orderMapper).toOrder(createOrderRequest);
         verify(priceFeedService).getCurrentPrice(symbol);
         verify(orderRepository, times(2)).save(any(Order.class));
-        verify(executionService).saveExecution(1L, BigDecimal.valueOf(210.55));
+        verify(executionService).saveExecution(1L, 210_550_000L);
         verify(orderMapper).toOrderResponse(savedOrder, executionResponse);
+        verify(orderCounterService).recordCreated(savedOrder);
+        verify(orderCounterService).recordStatusChange(savedOrder, OrderStatus.PENDING);
+        verify(orderCacheService).putAfterCommit(orderResponse);
         verify(orderCounter).increment();
     }
 
@@ -179,18 +193,18 @@ class OrderServiceTest {
     void should_ThrowRuntimeException_When_RateLimitExceeded() {
         // Given
         doThrow(new RuntimeException("Rate limit exceeded"))
-            .when(rateLimitingService).checkRateLimit(anyString());
+            .when(rateLimitingService).checkRateLimit(anyString(), anyString());
 
         // When & Then
         assertThatThrownBy(() -> orderService.createOrder(createOrderRequest))
             .isInstanceOf(RuntimeException.class)
             .hasMessage("Rate limit exceeded");
 
-        verify(rateLimitingService).checkRateLimit("acc-123");
+        verify(rateLimitingService).checkRateLimit("acc-123", "AAPL");
         verify(orderMapper, never()).toOrder(any());
         verify(priceFeedService, never()).getCurrentPrice(anyString());
         verify(orderRepository, never()).save(any());
-        verify(executionService, never()).saveExecution(anyLong(), any());
+        verify(executionService, never()).saveExecution(anyLong(), anyLong());
         verify(orderCounter, never()).increment();
     }
 
@@ -211,11 +225,11 @@ class OrderServiceTest {
             .isInstanceOf(PriceFeedException.class)
             .hasMessage("Price feed unavailable");
 
-        verify(rateLimitingService).checkRateLimit("acc-123");
+        verify(rateLimitingService).checkRateLimit("acc-123", "AAPL");
         verify(orderMapper).toOrder(createOrderRequest);
         verify(priceFeedService).getCurrentPrice("AAPL");
         verify(orderRepository, times(2)).save(any(Order.class));
-        verify(executionService, never()).saveExecution(anyLong(), any());
+        verify(executionService, never()).saveExecution(anyLong(), anyLong());
         verify(orderCounter, never()).increment();
     }
 
@@ -227,7 +241,7 @@ class OrderServiceTest {
         when(priceFeedService.getCurrentPrice(symbol)).thenReturn(priceResponse);
         when(orderRepository.save(any(Order.class)))
             .thenReturn(savedOrder); // First save succeeds
-        when(executionService.saveExecution(1L, BigDecimal.valueOf(210.55)))
+        when(executionService.saveExecution(1L, 210_550_000L))
             .thenThrow(new RuntimeException("Execution failed"));
 
         // When & Then
@@ -235,11 +249,11 @@ class OrderServiceTest {
             .isInstanceOf(RuntimeException.class)
             .hasMessage("Failed to create order");
 
-        verify(rateLimitingService).checkRateLimit("acc-123");
+        verify(rateLimitingService).checkRateLimit("acc-123", "AAPL");
         verify(orderMapper).toOrder(createOrderRequest);
         verify(priceFeedService).getCurrentPrice(symbol);
         verify(orderRepository, times(2)).save(any(Order.class));
-        verify(executionService).saveExecution(1L, BigDecimal.valueOf(210.55));
+        verify(executionService).saveExecution(1L, 210_550_000L);
         verify(orderCounter, never()).increment();
     }
 
@@ -251,6 +265,8 @@ class OrderServiceTest {
             .thenReturn(Optional.of(projection));
         when(orderMapper.projectionToOrderResponse(projection))
             .thenReturn(orderResponse);
+        when(orderCacheService.put(orderResponse))
+            .thenReturn(new OrderCacheService.TaggedOrder(orderResponse, "\"etag\""));
 
         // When
         OrderResponse result = orderService.getOrderById(1L);
@@ -260,8 +276,24 @@ class OrderServiceTest {
         assertThat(result.getId()).isEqualTo(1L);
         assertThat(result.getSymbol()).isEqualTo("AAPL");
 
+        verify(orderCacheService).get(1L);
         verify(orderRepository).findOrderWithExecutionNative(1L);
         verify(orderMapper).projectionToOrderResponse(projection);
+        verify(orderCacheService).put(orderResponse);
+    }
+
+    @Test
+    void should_SkipDatabase_When_OrderCached() {
+        // Given
+        OrderCacheService.TaggedOrder cached = new OrderCacheService.TaggedOrder(orderResponse, "\"etag\"");
+        when(orderCacheService.get(1L)).thenReturn(cached);
+
+        // When
+        OrderCacheService.TaggedOrder result = orderService.getTaggedOrderById(1L);
+
+        // Then
+        assertThat(result).isSameAs(cached);
+        verify(orderRepository, never()).findOrderWithExecutionNative(any());
     }
 
     @Test
@@ -288,17 +320,18 @@ class OrderServiceTest {
         OrderExecutionProjection projection1 = Mockito.mock(OrderExecutionProjection.class);
         OrderExecutionProjection projection2 = Mockito.mock(OrderExecutionProjection.class);
 
-        Page<OrderExecutionProjection> projectionPage = new PageImpl<>(
+        Slice<OrderExecutionProjection> projectionSlice = new SliceImpl<>(
             List.of(projection1, projection2),
             pageable,
-            2
+            true
         );
 
         OrderResponse response1 = new OrderResponse();
         OrderResponse response2 = new OrderResponse();
 
         Mockito.when(orderRepository.findOrderWithExecutionByAccountId(accountId, pageable))
-            .thenReturn(projectionPage);
+            .thenReturn(projectionSlice);
+        Mockito.when(orderCounterService.getTotal(accountId)).thenReturn(5L);
         Mockito.when(orderMapper.projectionToOrderResponse(projection1)).thenReturn(response1);
         Mockito.when(orderMapper.projectionToOrderResponse(projection2)).thenReturn(response2);
 
@@ -308,7 +341,7 @@ class OrderServiceTest {
         // Assert
         assertThat(result).isNotNull();
         assertThat(result.getContent()).containsExactly(response1, response2);
-        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getTotalElements()).isEqualTo(5);
 
         Mockito.verify(orderRepository).findOrderWithExecutionByAccountId(accountId, pageable);
         Mockito.verify(orderMapper).projectionToOrderResponse(projection1);
@@ -322,17 +355,18 @@ class OrderServiceTest {
         OrderExecutionProjection projection1 = Mockito.mock(OrderExecutionProjection.class);
         OrderExecutionProjection projection2 = Mockito.mock(OrderExecutionProjection.class);
 
-        Page<OrderExecutionProjection> projectionPage = new PageImpl<>(
+        Slice<OrderExecutionProjection> projectionSlice = new SliceImpl<>(
             List.of(projection1, projection2),
             pageable,
-            2
+            true
         );
 
         OrderResponse response1 = new OrderResponse();
         OrderResponse response2 = new OrderResponse();
 
         Mockito.when(orderRepository.findOrdersWithExecution(pageable))
-            .thenReturn(projectionPage);
+            .thenReturn(projectionSlice);
+        Mockito.when(orderCounterService.getTotal(null)).thenReturn(5L);
         Mockito.when(orderMapper.projectionToOrderResponse(projection1)).thenReturn(response1);
         Mockito.when(orderMapper.projectionToOrderResponse(projection2)).thenReturn(response2);
 
@@ -342,24 +376,76 @@ class OrderServiceTest {
         // Assert
         assertThat(result).isNotNull();
         assertThat(result.getContent()).containsExactly(response1, response2);
-        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getTotalElements()).isEqualTo(5);
 
         Mockito.verify(orderRepository).findOrdersWithExecution(pageable);
         Mockito.verify(orderMapper).projectionToOrderResponse(projection1);
         Mockito.verify(orderMapper).projectionToOrderResponse(projection2);
     }
 
+    @Test
+    void should_ReturnNextCursor_When_MoreOrdersFollow() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_000);
+        OrderExecutionProjection projection1 = mock(OrderExecutionProjection.class);
+        OrderExecutionProjection projection2 = mock(OrderExecutionProjection.class);
+        when(projection1.getCreatedAt()).thenReturn(createdAt);
+        when(projection1.getOrderId()).thenReturn(42L);
+        when(orderRepository.findFirstOrdersWithExecutionByAccountId("acc-123", 2))
+            .thenReturn(List.of(projection1, projection2));
+        when(orderMapper.projectionToOrderResponse(projection1)).thenReturn(orderResponse);
+
+        // When
+        CursorPage<OrderResponse> result = orderService.getOrdersAfter("acc-123", null, 1);
+
+        // Then
+        assertThat(result.content()).containsExactly(orderResponse);
+        assertThat(OrderCursor.decode(result.nextCursor())).isEqualTo(new OrderCursor(createdAt, 42L));
+        verify(orderMapper, never()).projectionToOrderResponse(projection2);
+    }
+
+    @Test
+    void should_SeekPastCursor_When_CursorProvided() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 15, 10, 30);
+        String cursor = new OrderCursor(createdAt, 42L).encode();
+        OrderExecutionProjection projection = mock(OrderExecutionProjection.class);
+        when(orderRepository.findOrdersWithExecutionBefore(createdAt, 42L, 21)).thenReturn(List.of(projection));
+        when(orderMapper.projectionToOrderResponse(projection)).thenReturn(orderResponse);
+
+        // When
+        CursorPage<OrderResponse> result = orderService.getOrdersAfter(null, cursor, 20);
+
+        // Then
+        assertThat(result.content()).containsExactly(orderResponse);
+        assertThat(result.nextCursor()).isNull();
+        assertThatThrownBy(() -> orderService.getOrdersAfter(null, "not-a-cursor", 20))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void should_RejectCursor_When_TimestampOutOfRange() {
+        // Given: a well-formed token whose seconds no LocalDateTime can hold
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+            ByteBuffer.allocate(20).putLong(Long.MAX_VALUE).putInt(0).putLong(42L).array());
+
+        // When / Then
+        assertThatThrownBy(() -> orderService.getOrdersAfter(null, cursor, 20))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Invalid cursor");
+    }
+
     @Test
     void should_ReturnOrderCount_When_AccountIdProvided() {
         // Given
         String accountId = "acc-123";
-        when(orderRepository.countByAccountId(accountId)).thenReturn(5L);
+        when(orderCounterService.getTotal(accountId)).thenReturn(5L);
 
         // When
         long result = orderService.getOrderCountByAccount(accountId);
 
         // Then
         assertThat(result).isEqualTo(5L);
-        verify(orderRepository).countByAccountId(accountId);
+        verify(orderRepository, never()).countByAccountId(accountId);
     }
 }
\ No newline at end of file
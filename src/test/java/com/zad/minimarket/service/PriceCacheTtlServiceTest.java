@@ -0,0 +1,101 @@
+package com.zad.minimarket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceCacheTtlServiceTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PriceCacheTtlService ttlService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ttlService = new PriceCacheTtlService(3000, 500, 30000, 5, 1.0, 100, 600_000, meterRegistry, clock::get);
+    }
+
+    @Test
+    void should_UseDefaultTtl_When_SymbolNotObserved() {
+        assertThat(ttlService.getTtl("AAPL")).isEqualTo(Duration.ofSeconds(3));
+    }
+
+    @Test
+    void should_CacheLonger_When_SymbolIsHotAndCalm() {
+        // Given
+        ttlService.onTick("AAPL", 0, 100_000_000L);
+        requestEvery("AAPL", 10, 100);
+
+        // When
+        ttlService.onTick("AAPL", 10_000, 100_001_000L);
+
+        // Then - 1bp in 10s needs 50s to move 5bp, capped at the max TTL
+        assertThat(ttlService.getTtl("AAPL")).isEqualTo(Duration.ofSeconds(30));
+        assertThat(meterRegistry.get("price.cache.ttl").summary().max()).isEqualTo(30.0);
+    }
+
+    @Test
+    void should_CacheShorter_When_SymbolIsVolatile() {
+        // Given
+        ttlService.onTick("TSLA", 0, 100_000_000L);
+        requestEvery("TSLA", 10, 100);
+
+        // When - 10bp per second
+        ttlService.onTick("TSLA", 1_000, 100_100_000L);
+
+        // Then
+        assertThat(ttlService.getTtl("TSLA")).isEqualTo(Duration.ofMillis(500));
+    }
+
+    @Test
+    void should_NotCache_When_SymbolRarelyRequested() {
+        // Given
+        ttlService.onTick("MSFT", 0, 100_000_000L);
+        requestEvery("MSFT", 60_000, 3);
+
+        // When
+        ttlService.onTick("MSFT", 60_000, 100_000_000L);
+
+        // Then
+        assertThat(ttlService.getTtl("MSFT")).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void should_NotTrackSymbol_When_OnlyRequested() {
+        // When - rare enough that a tracked symbol would not be cached
+        requestEvery("UNKNOWN", 60_000, 3);
+
+        // Then
+        assertThat(ttlService.getTtl("UNKNOWN")).isEqualTo(Duration.ofSeconds(3));
+        assertThat(meterRegistry.getMeters()).hasSize(1);
+    }
+
+    @Test
+    void should_ForgetSymbol_When_IdleTimeoutElapsed() {
+        // Given
+        ttlService.onTick("MSFT", 0, 100_000_000L);
+        requestEvery("MSFT", 60_000, 3);
+        ttlService.onTick("MSFT", 60_000, 100_000_000L);
+
+        // When
+        clock.addAndGet(600_000);
+
+        // Then
+        assertThat(ttlService.getTtl("MSFT")).isEqualTo(Duration.ofSeconds(3));
+    }
+
+    private void requestEvery(String symbol, long intervalMillis, int count) {
+        for (int i = 0; i < count; i++) {
+            ttlService.recordRequest(symbol);
+            clock.addAndGet(intervalMillis);
+        }
+    }
+}
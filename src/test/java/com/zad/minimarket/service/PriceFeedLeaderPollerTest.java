@@ -0,0 +1,112 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceResponse;
+import com.zad.minimarket.exception.PriceFeedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PriceFeedLeaderPollerTest {
+
+    @Mock
+    private PriceFeedService priceFeedService;
+
+    @Mock
+    private ClusterPriceTable clusterPriceTable;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private PriceFeedLeaderPoller poller;
+
+    @BeforeEach
+    void setUp() {
+        when(clusterPriceTable.getNodeId()).thenReturn("node-1");
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        poller = new PriceFeedLeaderPoller(priceFeedService, clusterPriceTable, redisTemplate, 1000, 3000,
+            new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        poller.stop();
+    }
+
+    @Test
+    void should_PublishActiveSymbolPrices_When_LeaseAcquired() {
+        // Given
+        when(valueOperations.setIfAbsent(PriceFeedLeaderPoller.LEASE_KEY, "node-1", Duration.ofMillis(3000)))
+            .thenReturn(true);
+        when(clusterPriceTable.getActiveSymbols()).thenReturn(Set.of("AAPL", "TSLA"));
+        when(priceFeedService.fetchPriceOnce("AAPL")).thenReturn(price("AAPL", 210_550_000L));
+        when(priceFeedService.fetchPriceOnce("TSLA")).thenThrow(new PriceFeedException("down"));
+
+        // When
+        poller.poll();
+
+        // Then
+        assertThat(poller.isLeader()).isTrue();
+        verify(clusterPriceTable).publish(eq("AAPL"), anyLong(), eq(210_550_000L));
+        verify(clusterPriceTable, never()).publish(eq("TSLA"), anyLong(), anyLong());
+    }
+
+    @Test
+    void should_PublishUnderRequestedSymbol_When_FeedEchoesAnotherSymbol() {
+        // Given
+        when(valueOperations.setIfAbsent(PriceFeedLeaderPoller.LEASE_KEY, "node-1", Duration.ofMillis(3000)))
+            .thenReturn(true);
+        when(clusterPriceTable.getActiveSymbols()).thenReturn(Set.of("AAPL", "TSLA"));
+        when(priceFeedService.fetchPriceOnce("AAPL")).thenReturn(price("aapl", 210_550_000L));
+        when(priceFeedService.fetchPriceOnce("TSLA")).thenReturn(price(null, 250_000_000L));
+
+        // When
+        poller.poll();
+
+        // Then
+        verify(clusterPriceTable).publish(eq("AAPL"), anyLong(), eq(210_550_000L));
+        verify(clusterPriceTable).publish(eq("TSLA"), anyLong(), eq(250_000_000L));
+    }
+
+    @Test
+    void should_NotPoll_When_AnotherNodeHoldsLease() {
+        // Given
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+        // When
+        poller.poll();
+
+        // Then
+        assertThat(poller.isLeader()).isFalse();
+        verify(clusterPriceTable, never()).getActiveSymbols();
+        verify(priceFeedService, never()).fetchPriceOnce(anyString());
+    }
+
+    private PriceResponse price(String symbol, long price) {
+        PriceResponse response = new PriceResponse();
+        response.setSymbol(symbol);
+        response.setPrice(price);
+        return response;
+    }
+}
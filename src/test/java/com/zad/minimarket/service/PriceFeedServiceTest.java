@@ -1,28 +1,33 @@
 package com.zad.minimarket.service;
 
+import com.zad.minimarket.config.PriceFeedFallback;
 import com.zad.minimarket.dto.PriceResponse;
 import com.zad.minimarket.exception.PriceFeedException;
+import com.zad.minimarket.exception.PriceFeedUnavailableException;
+import com.zad.minimarket.util.HedgedExecutor;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.lang.reflect.Field;
-import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 class PriceFeedServiceTest {
 
-    @InjectMocks
     private PriceFeedService priceFeedService;
 
     @Mock
@@ -31,13 +36,31 @@ class PriceFeedServiceTest {
     @Mock
     private CacheService cacheService;
 
+    @Mock
+    private PriceHistoryService priceHistoryService;
+
+    @Spy
+    private CircuitBreaker priceFeedCircuitBreaker = CircuitBreaker.ofDefaults("priceFeed");
+
+    @Spy
+    private HedgedExecutor priceFeedHedgedExecutor =
+        new HedgedExecutor("price.feed", false, 95, 20, 5, 256, new SimpleMeterRegistry());
+
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
 
-        Field baseUrlField = PriceFeedService.class.getDeclaredField("priceFeedBaseUrl");
-        baseUrlField.setAccessible(true);
-        baseUrlField.set(priceFeedService, "http://mock-price-feed");
+        priceFeedService = new PriceFeedService(
+            new HttpPriceFeedClient(restTemplate, "http://mock-price-feed"),
+            cacheService,
+            new PriceCacheTtlService(3000, 500, 30000, 5, 1.0, 10000, 600000, new SimpleMeterRegistry()),
+            priceFeedCircuitBreaker,
+            List.of(priceHistoryService),
+            priceFeedHedgedExecutor,
+            Optional.empty(),
+            10000,
+            3600000
+        );
     }
 
     @Test
@@ -46,7 +69,7 @@ class PriceFeedServiceTest {
         String symbol = "AAPL";
         PriceResponse cached = new PriceResponse();
         cached.setSymbol(symbol);
-        cached.setPrice(BigDecimal.valueOf(210.55));
+        cached.setPrice(210_550_000L);
         when(cacheService.getCachedPriceFromRedis(symbol)).thenReturn(cached);
 
         // When
@@ -64,7 +87,7 @@ class PriceFeedServiceTest {
         when(cacheService.getCachedPriceFromRedis(symbol)).thenReturn(null);
 
         PriceResponse remote = new PriceResponse();
-        remote.setPrice(BigDecimal.valueOf(2800.75));
+        remote.setPrice(2_800_750_000L);
         remote.setSymbol(symbol);
         ResponseEntity<PriceResponse> response = new ResponseEntity<>(remote, HttpStatus.OK);
         when(restTemplate.getForEntity("http://mock-price-feed/price?symbol=" + symbol, PriceResponse.class))
@@ -75,6 +98,7 @@ class PriceFeedServiceTest {
 
         // Then
         verify(cacheService).cachePrice(eq(symbol), eq(remote), eq(Duration.ofSeconds(3)));
+        verify(priceHistoryService).onTick(eq(symbol), anyLong(), eq(2_800_750_000L));
         Assertions.assertEquals(remote.getPrice(), result.getPrice());
     }
 
@@ -83,7 +107,7 @@ class PriceFeedServiceTest {
         // Given
         String symbol = "MSFT";
         PriceResponse response = new PriceResponse();
-        response.setPrice(BigDecimal.valueOf(415.30));
+        response.setPrice(415_300_000L);
         response.setSymbol(symbol);
         when(restTemplate.getForEntity(anyString(), eq(PriceResponse.class)))
             .thenReturn(new ResponseEntity<>(response, HttpStatus.OK));
@@ -107,7 +131,7 @@ class PriceFeedServiceTest {
         // Then
         Assertions.assertNotNull(fallback);
         Assertions.assertEquals(symbol, fallback.getSymbol());
-        Assertions.assertEquals(6, fallback.getPrice().scale());
+        Assertions.assertTrue(fallback.getPrice() >= 233_510_000L && fallback.getPrice() <= 258_090_000L);
     }
 
     @Test
@@ -122,4 +146,39 @@ class PriceFeedServiceTest {
             priceFeedService.fetchPriceWithRetry(symbol);
         });
     }
+
+    @Test
+    void should_ReturnLastKnownPrice_When_CircuitBreakerOpen() {
+        // Given
+        String symbol = "AAPL";
+        PriceResponse remote = new PriceResponse();
+        remote.setPrice(210_550_000L);
+        remote.setSymbol(symbol);
+        when(restTemplate.getForEntity(anyString(), eq(PriceResponse.class)))
+            .thenReturn(new ResponseEntity<>(remote, HttpStatus.OK));
+        priceFeedService.getCurrentPrice(symbol);
+        priceFeedCircuitBreaker.transitionToOpenState();
+
+        // When
+        PriceResponse result = priceFeedService.getCurrentPrice(symbol);
+
+        // Then
+        verify(restTemplate, times(1)).getForEntity(anyString(), eq(PriceResponse.class));
+        Assertions.assertEquals(remote.getPrice(), result.getPrice());
+    }
+
+    @Test
+    void should_FailFast_When_CircuitBreakerOpenAndFallbackIsFail() throws Exception {
+        // Given
+        Field fallbackField = PriceFeedService.class.getDeclaredField("fallback");
+        fallbackField.setAccessible(true);
+        fallbackField.set(priceFeedService, PriceFeedFallback.FAIL);
+        priceFeedCircuitBreaker.transitionToOpenState();
+
+        // Then
+        assertThrows(PriceFeedUnavailableException.class, () -> {
+            priceFeedService.getCurrentPrice("TSLA");
+        });
+        verify(restTemplate, never()).getForEntity(anyString(), eq(PriceResponse.class));
+    }
 }
@@ -0,0 +1,83 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceBarResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceHistoryServiceTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private final PriceHistoryService priceHistoryService = new PriceHistoryService(4, 100, 3_600_000);
+
+    @Test
+    void should_AggregateTicksIntoOhlcBars() {
+        // Given
+        priceHistoryService.onTick("AAPL", 10 * MINUTE, 210_000_000L);
+        priceHistoryService.onTick("AAPL", 10 * MINUTE + 1_000, 212_000_000L);
+        priceHistoryService.onTick("AAPL", 10 * MINUTE + 2_000, 209_000_000L);
+        priceHistoryService.onTick("AAPL", 11 * MINUTE + 5_000, 211_000_000L);
+
+        // When
+        List<PriceBarResponse> bars = priceHistoryService.getBars("AAPL", Duration.ofMinutes(1));
+
+        // Then
+        assertThat(bars).hasSize(2);
+        PriceBarResponse first = bars.get(0);
+        assertThat(first.getStart()).isEqualTo(LocalDateTime.of(1970, 1, 1, 0, 10));
+        assertThat(first.getOpen()).isEqualTo(210_000_000L);
+        assertThat(first.getHigh()).isEqualTo(212_000_000L);
+        assertThat(first.getLow()).isEqualTo(209_000_000L);
+        assertThat(first.getClose()).isEqualTo(209_000_000L);
+        assertThat(first.getTickCount()).isEqualTo(3);
+        assertThat(bars.get(1).getTickCount()).isEqualTo(1);
+        assertThat(bars.get(1).getOpen()).isEqualTo(211_000_000L);
+    }
+
+    @Test
+    void should_KeepOnlyMostRecentTicks_When_CapacityExceeded() {
+        // Given
+        for (int i = 0; i < 6; i++) {
+            priceHistoryService.onTick("MSFT", i * MINUTE, (400 + i) * 1_000_000L);
+        }
+
+        // When
+        List<PriceBarResponse> bars = priceHistoryService.getBars("MSFT", Duration.ofMinutes(1));
+
+        // Then
+        assertThat(bars).hasSize(4);
+        assertThat(bars.get(0).getOpen()).isEqualTo(402_000_000L);
+        assertThat(bars.get(3).getClose()).isEqualTo(405_000_000L);
+    }
+
+    @Test
+    void should_DropLeastRecentSymbol_When_MaxSymbolsExceeded() {
+        // Given
+        PriceHistoryService service = new PriceHistoryService(4, 1, 3_600_000);
+        service.onTick("AAPL", MINUTE, 210_000_000L);
+
+        // When
+        service.onTick("MSFT", MINUTE, 415_000_000L);
+
+        // Then
+        assertThat(service.getBars("AAPL", Duration.ofMinutes(1))).isEmpty();
+        assertThat(service.getBars("MSFT", Duration.ofMinutes(1))).hasSize(1);
+    }
+
+    @Test
+    void should_ReturnEmptyList_When_NoHistory() {
+        assertThat(priceHistoryService.getBars("TSLA", Duration.ofMinutes(1))).isEmpty();
+    }
+
+    @Test
+    void should_ThrowIllegalArgumentException_When_IntervalNotPositive() {
+        assertThatThrownBy(() -> priceHistoryService.getBars("AAPL", Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
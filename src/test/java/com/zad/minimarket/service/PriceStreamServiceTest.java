@@ -0,0 +1,130 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.dto.PriceResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceStreamServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PriceStreamService priceStreamService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        priceStreamService = new PriceStreamService(60_000, 3, 100, 600_000, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        priceStreamService.close();
+    }
+
+    @Test
+    void should_SendLastKnownAndNewPrices_When_Subscribed() throws Exception {
+        // Given
+        priceStreamService.onTick("AAPL", 1, 210_550_000L);
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+
+        // When
+        priceStreamService.subscribe(List.of("aapl", "MSFT"), emitter);
+        priceStreamService.onTick("MSFT", 2, 415_300_000L);
+        priceStreamService.onTick("TSLA", 3, 245_800_000L);
+
+        // Then
+        awaitUntil(() -> emitter.prices.size() == 2);
+        assertThat(emitter.prices).extracting(PriceResponse::getSymbol).containsExactlyInAnyOrder("AAPL", "MSFT");
+    }
+
+    @Test
+    void should_SendOnlyLatestPrice_When_SubscriberIsSlow() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(release);
+        priceStreamService.subscribe(List.of("AAPL"), emitter);
+        priceStreamService.onTick("AAPL", 1, 100_000_000L);
+        awaitUntil(() -> emitter.sending);
+
+        // When
+        for (int i = 1; i <= 100; i++) {
+            priceStreamService.onTick("AAPL", 1 + i, 100_000_000L + i);
+        }
+        release.countDown();
+
+        // Then
+        awaitUntil(() -> emitter.prices.size() == 2);
+        assertThat(emitter.prices.get(1).getPrice()).isEqualTo(100_000_100L);
+        assertThat(meterRegistry.get("price.stream.conflated").counter().count()).isEqualTo(99);
+    }
+
+    @Test
+    void should_StartWithoutPrice_When_SymbolNoLongerTracked() throws Exception {
+        // Given: room for a single last known price
+        priceStreamService.close();
+        priceStreamService = new PriceStreamService(60_000, 3, 1, 600_000, meterRegistry);
+        priceStreamService.onTick("AAPL", 1, 210_550_000L);
+        priceStreamService.onTick("MSFT", 2, 415_300_000L);
+        RecordingEmitter emitter = new RecordingEmitter(new CountDownLatch(0));
+
+        // When
+        priceStreamService.subscribe(List.of("AAPL", "MSFT"), emitter);
+
+        // Then
+        awaitUntil(() -> emitter.prices.size() == 1);
+        Thread.sleep(50);
+        assertThat(emitter.prices).extracting(PriceResponse::getSymbol).containsExactly("MSFT");
+    }
+
+    @Test
+    void should_Reject_When_TooManySymbolsRequested() {
+        assertThatThrownBy(() -> priceStreamService.subscribe(List.of("A", "B", "C", "D")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch release;
+        private final List<PriceResponse> prices = new CopyOnWriteArrayList<>();
+        private volatile boolean sending;
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending = true;
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            builder.build().stream()
+                .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                .filter(PriceResponse.class::isInstance)
+                .forEach(data -> prices.add((PriceResponse) data));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.exception.RateLimitExceededException;
+import com.zad.minimarket.service.RateLimitingService.Decision;
+import com.zad.minimarket.service.RateLimitingService.Level;
+import com.zad.minimarket.service.RateLimitingService.Limit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateLimitingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @ParameterizedTest
+    @ValueSource(strings = {"table", "bucket4j"})
+    void should_RefundAccount_When_SymbolLimitRejects(String engine) {
+        // Given
+        RateLimitingService service = service(engine, 10, 1, 0);
+        service.tryConsume("acc-1", "AAPL");
+
+        // When
+        Decision decision = service.tryConsume("acc-2", "AAPL");
+
+        // Then
+        assertThat(decision.rejectedBy()).isEqualTo(Level.SYMBOL);
+        assertThat(decision.retryAfterMillis()).isPositive();
+        assertThat(service.getRemainingTokens("acc-2")).isEqualTo(10);
+        assertThat(service.tryConsume("acc-2", "MSFT").isAllowed()).isTrue();
+    }
+
+    @Test
+    void should_RefundAccountAndSymbol_When_GlobalLimitRejects() {
+        // Given
+        RateLimitingService service = service("table", 10, 5, 1);
+        service.tryConsume("acc-1", "AAPL");
+
+        // When
+        Decision decision = service.tryConsume("acc-2", "AAPL");
+
+        // Then
+        assertThat(decision.rejectedBy()).isEqualTo(Level.GLOBAL);
+        assertThat(service.getRemainingTokens("acc-2")).isEqualTo(10);
+        service.updateLimit(Level.GLOBAL, new Limit(0, 0));
+        for (int i = 0; i < 4; i++) {
+            assertThat(service.tryConsume("acc-3", "AAPL").isAllowed()).isTrue();
+        }
+        assertThat(service.tryConsume("acc-3", "AAPL").rejectedBy()).isEqualTo(Level.SYMBOL);
+    }
+
+    @Test
+    void should_ChargeSameSymbolBucket_When_SymbolCaseOrSpacingDiffers() {
+        // Given
+        RateLimitingService service = service("table", 10, 1, 0);
+        service.tryConsume("acc-1", "AAPL");
+
+        // When
+        Decision decision = service.tryConsume("acc-2", " aapl ");
+
+        // Then
+        assertThat(decision.rejectedBy()).isEqualTo(Level.SYMBOL);
+    }
+
+    @Test
+    void should_RefundLocalBucket_When_ClusterFallbackChargedAccount() {
+        // Given: Redis is unavailable, so the cluster limiter charges the local bucket
+        ClusterRateLimiter clusterRateLimiter = mock(ClusterRateLimiter.class);
+        when(clusterRateLimiter.tryConsume(eq("acc-1"), any()))
+            .thenAnswer(invocation -> ((LongSupplier) invocation.getArgument(1)).getAsLong());
+        RateLimitingService service = new RateLimitingService(10, 10, 1000, 60_000, "table",
+            1, 1, 100, 0, 0, null, meterRegistry, Optional.of(clusterRateLimiter));
+        service.tryConsume("acc-1", "AAPL");
+
+        // When
+        Decision decision = service.tryConsume("acc-1", "AAPL");
+
+        // Then
+        assertThat(decision.rejectedBy()).isEqualTo(Level.SYMBOL);
+        assertThat(service.getRemainingTokens("acc-1")).isEqualTo(9);
+        verify(clusterRateLimiter, never()).refund(anyString());
+    }
+
+    @Test
+    void should_RefundClusterLease_When_LeaseChargedAccount() {
+        // Given
+        ClusterRateLimiter clusterRateLimiter = mock(ClusterRateLimiter.class);
+        RateLimitingService service = new RateLimitingService(10, 10, 1000, 60_000, "table",
+            1, 1, 100, 0, 0, null, meterRegistry, Optional.of(clusterRateLimiter));
+        service.tryConsume("acc-1", "AAPL");
+
+        // When
+        service.tryConsume("acc-1", "AAPL");
+
+        // Then
+        verify(clusterRateLimiter).refund("acc-1");
+        assertThat(service.getRemainingTokens("acc-1")).isEqualTo(10);
+    }
+
+    @Test
+    void should_CountRejectionsByReason_When_LimitsExceeded() {
+        // Given
+        RateLimitingService service = service("table", 1, 0, 0);
+        service.tryConsume("acc-1", "AAPL");
+
+        // When / Then
+        assertThatThrownBy(() -> service.checkRateLimit("acc-1", "AAPL"))
+            .isInstanceOf(RateLimitExceededException.class)
+            .hasMessage("Rate limit exceeded for account: acc-1");
+        assertThat(meterRegistry.get("rate.limit.rejections").tag("reason", "account").counter().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("rate.limit.rejections").tag("reason", "symbol").counter().count())
+            .isZero();
+    }
+
+    @Test
+    void should_ApplyNewAccountLimit_When_Updated() {
+        // Given
+        RateLimitingService service = service("table", 1, 0, 0);
+
+        // When
+        service.updateLimit(Level.ACCOUNT, new Limit(5, 5));
+
+        // Then
+        assertThat(service.getLimits()).containsEntry(Level.ACCOUNT, new Limit(5, 5));
+        for (int i = 0; i < 5; i++) {
+            assertThat(service.tryConsume("acc-1", "AAPL").isAllowed()).isTrue();
+        }
+        assertThat(service.tryConsume("acc-1", "AAPL").rejectedBy()).isEqualTo(Level.ACCOUNT);
+        assertThatThrownBy(() -> service.updateLimit(Level.ACCOUNT, new Limit(0, 0)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private RateLimitingService service(String engine, int accountLimit, int symbolLimit, int globalLimit) {
+        return new RateLimitingService(accountLimit, accountLimit, 1000, 60_000, engine,
+            symbolLimit, symbolLimit, 100, globalLimit, globalLimit, null, meterRegistry, Optional.empty());
+    }
+}
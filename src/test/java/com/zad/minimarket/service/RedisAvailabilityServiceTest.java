@@ -0,0 +1,97 @@
+package com.zad.minimarket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RedisAvailabilityServiceTest {
+
+    @Mock
+    private RedisConnectionFactory connectionFactory;
+
+    @Mock
+    private RedisConnection connection;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RedisAvailabilityService redisAvailabilityService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        redisAvailabilityService = new RedisAvailabilityService(connectionFactory, 3, 20, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        redisAvailabilityService.close();
+    }
+
+    @Test
+    void should_UseFallback_When_RedisCallFails() {
+        // When
+        String result = redisAvailabilityService.execute(this::failingCall, () -> "local");
+
+        // Then
+        assertThat(result).isEqualTo("local");
+        assertThat(redisAvailabilityService.isDegraded()).isFalse();
+    }
+
+    @Test
+    void should_BypassRedis_When_FailureThresholdReached() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            redisAvailabilityService.execute(this::failingCall, () -> "local");
+        }
+        AtomicInteger redisCalls = new AtomicInteger();
+
+        // When
+        String result = redisAvailabilityService.execute(() -> "redis-" + redisCalls.incrementAndGet(), () -> "local");
+
+        // Then
+        assertThat(redisAvailabilityService.isDegraded()).isTrue();
+        assertThat(result).isEqualTo("local");
+        assertThat(redisCalls).hasValue(0);
+        assertThat(meterRegistry.get("redis.degraded").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void should_SwitchBack_When_ProbeSucceeds() throws Exception {
+        // Given
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        for (int i = 0; i < 3; i++) {
+            redisAvailabilityService.execute(this::failingCall, () -> "local");
+        }
+
+        // When
+        verify(connection, timeout(2000)).ping();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (redisAvailabilityService.isDegraded() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // Then
+        assertThat(redisAvailabilityService.isDegraded()).isFalse();
+        assertThat(redisAvailabilityService.execute(() -> "redis", () -> "local")).isEqualTo("redis");
+        assertThat(meterRegistry.get("redis.degraded.time").functionCounter().count()).isPositive();
+    }
+
+    private String failingCall() {
+        throw new QueryTimeoutException("Redis command timed out");
+    }
+}
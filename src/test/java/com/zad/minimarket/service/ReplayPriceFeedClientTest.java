@@ -0,0 +1,67 @@
+package com.zad.minimarket.service;
+
+import com.zad.minimarket.codec.PriceRecording;
+import com.zad.minimarket.codec.PriceRecordingWriter;
+import com.zad.minimarket.exception.PriceFeedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplayPriceFeedClientTest {
+
+    private PriceRecording recording;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PriceRecordingWriter writer = new PriceRecordingWriter(out, 1_000)) {
+            writer.write("AAPL", 1_000, 100_000_000L);
+            writer.write("MSFT", 1_500, 400_000_000L);
+            writer.write("AAPL", 2_000, 101_000_000L);
+            writer.write("AAPL", 3_000, 102_000_000L);
+        }
+        recording = PriceRecording.read(out.toByteArray());
+    }
+
+    @Test
+    void should_ReturnNextTickPerSymbol_When_ReplayingAtMaximumSpeed() {
+        // Given
+        ReplayPriceFeedClient client = new ReplayPriceFeedClient(recording, 0, true, () -> 0L);
+
+        // When / Then
+        assertThat(client.fetchPrice("AAPL").getPrice()).isEqualTo(100_000_000L);
+        assertThat(client.fetchPrice("MSFT").getPrice()).isEqualTo(400_000_000L);
+        assertThat(client.fetchPrice("AAPL").getPrice()).isEqualTo(101_000_000L);
+        assertThat(client.fetchPrice("AAPL").getPrice()).isEqualTo(102_000_000L);
+        assertThat(client.fetchPrice("AAPL").getPrice()).isEqualTo(100_000_000L);
+    }
+
+    @Test
+    void should_FollowClock_When_ReplayingInRealTime() {
+        // Given
+        AtomicLong clock = new AtomicLong(50_000);
+        ReplayPriceFeedClient client = new ReplayPriceFeedClient(recording, 2.0, false, clock::get);
+
+        // When / Then
+        assertThat(client.fetchPrice("AAPL").getPrice()).isEqualTo(100_000_000L);
+        assertThat(client.fetchPrice("MSFT").getPrice()).isEqualTo(400_000_000L);
+        clock.addAndGet(500);
+        assertThat(client.fetchPrice("AAPL").getPrice()).isEqualTo(101_000_000L);
+        clock.addAndGet(10_000);
+        assertThat(client.fetchPrice("AAPL").getPrice()).isEqualTo(102_000_000L);
+    }
+
+    @Test
+    void should_ThrowPriceFeedException_When_SymbolNotRecorded() {
+        ReplayPriceFeedClient client = new ReplayPriceFeedClient(recording, 0, true, () -> 0L);
+
+        assertThatThrownBy(() -> client.fetchPrice("TSLA"))
+            .isInstanceOf(PriceFeedException.class);
+    }
+}
@@ -0,0 +1,70 @@
+package com.zad.minimarket.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyntheticMarketDataGeneratorTest {
+
+    @Test
+    void should_ProduceSamePath_When_SeedIsTheSame() {
+        // Given
+        SyntheticMarketDataGenerator first = new SyntheticMarketDataGenerator(7, 0.0, 0.3, 0, 10, 100, 600_000);
+        SyntheticMarketDataGenerator second = new SyntheticMarketDataGenerator(7, 0.0, 0.3, 0, 10, 100, 600_000);
+
+        // When
+        second.getPrice("MSFT");
+        List<Long> firstPath = path(first, "AAPL", 100);
+        List<Long> secondPath = path(second, "AAPL", 100);
+
+        // Then
+        assertThat(firstPath).isEqualTo(secondPath);
+        assertThat(firstPath).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void should_ProduceDifferentPaths_When_SeedDiffers() {
+        SyntheticMarketDataGenerator first = new SyntheticMarketDataGenerator(1, 0.0, 0.3, 0, 10, 100, 600_000);
+        SyntheticMarketDataGenerator second = new SyntheticMarketDataGenerator(2, 0.0, 0.3, 0, 10, 100, 600_000);
+
+        assertThat(path(first, "AAPL", 10)).isNotEqualTo(path(second, "AAPL", 10));
+    }
+
+    @Test
+    void should_KeepPricesPositive_When_VolatilityIsHigh() {
+        SyntheticMarketDataGenerator generator = new SyntheticMarketDataGenerator(3, 0.0, 5.0, 0, 10, 100, 600_000);
+
+        assertThat(path(generator, "TSLA", 10_000)).allMatch(price -> price > 0);
+    }
+
+    @Test
+    void should_RestartPath_When_EvictedForAnotherSymbol() {
+        // Given - room for one path
+        SyntheticMarketDataGenerator generator = new SyntheticMarketDataGenerator(5, 0.0, 0.3, 0, 10, 1, 600_000);
+        List<Long> firstVisit = path(generator, "AAPL", 3);
+
+        // When
+        generator.getPrice("MSFT");
+
+        // Then
+        assertThat(path(generator, "AAPL", 3)).isEqualTo(firstVisit);
+    }
+
+    @Test
+    void should_BuildUniverseOfConfiguredSize() {
+        SyntheticMarketDataGenerator generator = new SyntheticMarketDataGenerator(42, 0.0, 0.2, 10, 5000, 100, 600_000);
+
+        assertThat(generator.getUniverse()).hasSize(5000).startsWith("SYM00000").endsWith("SYM04999");
+    }
+
+    private static List<Long> path(SyntheticMarketDataGenerator generator, String symbol, int ticks) {
+        List<Long> prices = new ArrayList<>();
+        for (int i = 0; i < ticks; i++) {
+            prices.add(generator.getPrice(symbol).getPrice());
+        }
+        return prices;
+    }
+}
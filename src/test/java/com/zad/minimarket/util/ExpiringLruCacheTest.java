@@ -0,0 +1,39 @@
+package com.zad.minimarket.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringLruCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void should_ExpireEntry_When_TtlElapsed() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(10, clock::get);
+        cache.put("a", "1", Duration.ofMillis(100));
+
+        clock.set(99);
+        assertThat(cache.get("a")).isEqualTo("1");
+        clock.set(100);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void should_EvictLeastRecentlyUsed_When_Full() {
+        ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, clock::get);
+        cache.put("a", "1", Duration.ofMinutes(1));
+        cache.put("b", "2", Duration.ofMinutes(1));
+        cache.get("a");
+
+        cache.put("c", "3", Duration.ofMinutes(1));
+
+        assertThat(cache.containsKey("a")).isTrue();
+        assertThat(cache.containsKey("b")).isFalse();
+        assertThat(cache.containsKey("c")).isTrue();
+    }
+}
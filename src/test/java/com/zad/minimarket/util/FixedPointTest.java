@@ -0,0 +1,64 @@
+package com.zad.minimarket.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zad.minimarket.dto.PriceResponse;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FixedPointTest {
+
+    @Test
+    void should_ParseWithHalfUpRounding_When_MoreThanSixDecimals() {
+        assertThat(FixedPoint.parse("210.55")).isEqualTo(210_550_000L);
+        assertThat(FixedPoint.parse("0.0000005")).isEqualTo(1L);
+        assertThat(FixedPoint.parse("0.00000049999")).isEqualTo(0L);
+        assertThat(FixedPoint.parse("-1.2345675")).isEqualTo(-1_234_568L);
+        assertThat(FixedPoint.parse("2.1055E2")).isEqualTo(210_550_000L);
+        assertThat(FixedPoint.parse("42")).isEqualTo(42_000_000L);
+    }
+
+    @Test
+    void should_MatchBigDecimalSemantics_When_Parsing() {
+        String[] values = {"1.9999995", "123456.1234564", "-0.5000005", "7", "0.000001", "999999999999.999999"};
+        for (String value : values) {
+            long expected = new BigDecimal(value).setScale(6, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            assertThat(FixedPoint.parse(value)).as(value).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void should_ThrowNumberFormatException_When_InputInvalid() {
+        assertThatThrownBy(() -> FixedPoint.parse("")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> FixedPoint.parse("-")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> FixedPoint.parse("1.2.3")).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void should_MultiplyWithHalfUpRounding() {
+        assertThat(FixedPoint.multiply(210_550_000L, 1_050_000L)).isEqualTo(221_077_500L);
+        assertThat(FixedPoint.multiply(1L, 500_000L)).isEqualTo(1L);
+        assertThat(FixedPoint.multiply(-1L, 500_000L)).isEqualTo(-1L);
+        assertThat(FixedPoint.multiply(Long.MAX_VALUE / 2, 2_000_000L)).isEqualTo(Long.MAX_VALUE - 1);
+    }
+
+    @Test
+    void should_FormatWithSixDecimals() {
+        assertThat(FixedPoint.toString(210_550_000L)).isEqualTo("210.550000");
+        assertThat(FixedPoint.toString(-1L)).isEqualTo("-0.000001");
+        assertThat(FixedPoint.toBigDecimal(210_550_000L)).isEqualByComparingTo("210.55");
+    }
+
+    @Test
+    void should_RoundTripThroughJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        PriceResponse price = objectMapper.readValue("{\"symbol\":\"AAPL\",\"price\":210.5500004}", PriceResponse.class);
+        assertThat(price.getPrice()).isEqualTo(210_550_000L);
+        assertThat(objectMapper.writeValueAsString(price)).isEqualTo("{\"symbol\":\"AAPL\",\"price\":210.550000}");
+    }
+}
@@ -0,0 +1,128 @@
+package com.zad.minimarket.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class HedgedExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HedgedExecutor hedgedExecutor;
+
+    @AfterEach
+    void tearDown() {
+        hedgedExecutor.close();
+    }
+
+    @Test
+    void should_ReturnHedgeResult_When_FirstCallIsSlow() {
+        // Given
+        hedgedExecutor = new HedgedExecutor("test", true, 95, 10, 100, 4, meterRegistry);
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        long start = System.nanoTime();
+        String result = hedgedExecutor.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(5_000);
+                return "slow";
+            }
+            return "hedge";
+        });
+
+        // Then
+        assertThat(result).isEqualTo("hedge");
+        assertThat(System.nanoTime() - start).isLessThan(2_000_000_000L);
+        assertThat(meterRegistry.counter("test.hedge.sent").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("test.hedge.wins").count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_RecordElapsedTime_When_SlowCallCancelled() {
+        // Given
+        LatencyTracker latencyTracker = spy(new LatencyTracker(4, 95, 4));
+        hedgedExecutor = new HedgedExecutor("test", true, 10, 100, latencyTracker, meterRegistry);
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        hedgedExecutor.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(5_000);
+                return "slow";
+            }
+            return "hedge";
+        });
+
+        // Then - the cancelled call counts once, with at least the hedge delay
+        verify(latencyTracker, timeout(1_000).times(6)).record(anyLong());
+        verify(latencyTracker, atLeastOnce()).record(longThat(nanos -> nanos >= TimeUnit.MILLISECONDS.toNanos(10)));
+    }
+
+    @Test
+    void should_NotHedge_When_BudgetExhausted() {
+        // Given
+        hedgedExecutor = new HedgedExecutor("test", true, 95, 10, 1, 4, meterRegistry);
+        warmUp();
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        String result = hedgedExecutor.execute(() -> {
+            attempts.incrementAndGet();
+            sleep(100);
+            return "primary";
+        });
+
+        // Then
+        assertThat(result).isEqualTo("primary");
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(meterRegistry.counter("test.hedge.budget.exhausted").count()).isEqualTo(1);
+    }
+
+    @Test
+    void should_RethrowFailure_When_AllCallsFail() {
+        // Given
+        hedgedExecutor = new HedgedExecutor("test", true, 95, 10, 100, 4, meterRegistry);
+
+        // Then
+        assertThatThrownBy(() -> hedgedExecutor.execute(() -> {
+            throw new IllegalArgumentException("boom");
+        })).isInstanceOf(IllegalArgumentException.class).hasMessage("boom");
+    }
+
+    @Test
+    void should_RunInline_When_Disabled() {
+        hedgedExecutor = new HedgedExecutor("test", false, 95, 10, 100, 4, meterRegistry);
+        Thread caller = Thread.currentThread();
+
+        assertThat(hedgedExecutor.execute(Thread::currentThread)).isSameAs(caller);
+    }
+
+    private void warmUp() {
+        for (int i = 0; i < 4; i++) {
+            hedgedExecutor.execute(() -> "warm");
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
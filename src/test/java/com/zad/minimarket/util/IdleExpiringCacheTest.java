@@ -0,0 +1,68 @@
+package com.zad.minimarket.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdleExpiringCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final List<IdleExpiringCache.EvictionCause> evictions = new ArrayList<>();
+
+    @Test
+    void should_ExpireEntry_When_IdleTimeoutElapsed() {
+        IdleExpiringCache<String, String> cache = new IdleExpiringCache<>(10, 100, evictions::add, clock::get);
+        cache.computeIfAbsent("a", key -> "1");
+
+        clock.set(99);
+        assertThat(cache.computeIfAbsent("a", key -> "2")).isEqualTo("1");
+        clock.set(198);
+        assertThat(cache.size()).isEqualTo(1);
+        clock.set(199);
+        assertThat(cache.size()).isZero();
+        assertThat(evictions).containsExactly(IdleExpiringCache.EvictionCause.IDLE);
+        assertThat(cache.computeIfAbsent("a", key -> "2")).isEqualTo("2");
+    }
+
+    @Test
+    void should_ReplaceValueAndRefreshAccess_When_Put() {
+        IdleExpiringCache<String, String> cache = new IdleExpiringCache<>(10, 100, evictions::add, clock::get);
+        cache.put("a", "1");
+
+        clock.set(99);
+        cache.put("a", "2");
+        clock.set(198);
+
+        assertThat(cache.getIfPresent("a")).isEqualTo("2");
+        assertThat(evictions).isEmpty();
+    }
+
+    @Test
+    void should_EvictLeastRecentlyUsed_When_Full() {
+        IdleExpiringCache<Integer, String> cache = new IdleExpiringCache<>(1, 1_000, evictions::add, clock::get);
+        cache.computeIfAbsent(1, key -> "1");
+
+        cache.computeIfAbsent(2, key -> "2");
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(evictions).containsExactly(IdleExpiringCache.EvictionCause.SIZE);
+        assertThat(cache.computeIfAbsent(2, key -> "other")).isEqualTo("2");
+    }
+
+    @Test
+    void should_NeverExceedMaxEntries_When_KeysSpreadOverStripes() {
+        IdleExpiringCache<Integer, Integer> cache = new IdleExpiringCache<>(100, 1_000, evictions::add, clock::get);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.computeIfAbsent(i, key -> key);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(evictions).hasSize(1_000 - cache.size());
+    }
+}
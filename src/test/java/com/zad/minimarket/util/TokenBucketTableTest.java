@@ -0,0 +1,133 @@
+package com.zad.minimarket.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTableTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    private final List<IdleExpiringCache.EvictionCause> evictions = new ArrayList<>();
+
+    @Test
+    void should_RefillWholeBatchPerInterval_When_Drained() {
+        TokenBucketTable table = new TokenBucketTable(100, 10, 5, 1000, 60_000, true, evictions::add, clock::get);
+        for (int i = 0; i < 10; i++) {
+            assertThat(table.tryConsume("acc-1")).isZero();
+        }
+
+        assertThat(table.tryConsume("acc-1")).isEqualTo(1000);
+        clock.addAndGet(999);
+        assertThat(table.tryConsume("acc-1")).isEqualTo(1);
+        clock.addAndGet(1);
+        assertThat(table.availableTokens("acc-1")).isEqualTo(5);
+        clock.addAndGet(5_000);
+        assertThat(table.availableTokens("acc-1")).isEqualTo(10);
+        assertThat(table.availableTokens("acc-2")).isEqualTo(10);
+    }
+
+    @Test
+    void should_RefillCompletely_When_Reset() {
+        TokenBucketTable table = new TokenBucketTable(100, 2, 2, 1000, 60_000, true, evictions::add, clock::get);
+        table.tryConsume("acc-1");
+        table.tryConsume("acc-1");
+
+        table.reset("acc-1");
+
+        assertThat(table.tryConsume("acc-1")).isZero();
+    }
+
+    @Test
+    void should_ReuseIdleOrOldestBuckets_When_ProbeWindowFull() {
+        TokenBucketTable table = new TokenBucketTable(1, 1, 1, 1000, 1000, true, evictions::add, clock::get);
+        for (int i = 0; i < TokenBucketTable.MAX_PROBES * 4; i++) {
+            table.tryConsume("acc-" + i);
+        }
+        assertThat(evictions).contains(IdleExpiringCache.EvictionCause.SIZE);
+
+        clock.addAndGet(1000);
+        evictions.clear();
+        for (int i = 0; i < TokenBucketTable.MAX_PROBES; i++) {
+            assertThat(table.tryConsume("other-" + i)).isZero();
+        }
+        assertThat(evictions).doesNotContain(IdleExpiringCache.EvictionCause.SIZE);
+    }
+
+    @Test
+    void should_KeepEvictedTokens_When_NotRefillingEvictedBuckets() {
+        TokenBucketTable table = new TokenBucketTable(1, 1, 1, 1000, 60_000, false, evictions::add, clock::get);
+        int granted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (table.tryConsume("symbol-" + i) == 0) {
+                granted++;
+            }
+        }
+
+        // One token per slot of the table, however many keys pass through it
+        assertThat(evictions).contains(IdleExpiringCache.EvictionCause.SIZE);
+        assertThat(granted).isLessThanOrEqualTo(TokenBucketTable.MAX_PROBES * 2);
+    }
+
+    @Test
+    void should_ReturnTokenUpToCapacity_When_Refunded() {
+        TokenBucketTable table = new TokenBucketTable(100, 2, 2, 1000, 60_000, true, evictions::add, clock::get);
+        table.tryConsume("acc-1");
+        table.tryConsume("acc-1");
+
+        table.refund("acc-1");
+        table.refund("acc-1");
+        table.refund("acc-1");
+
+        assertThat(table.availableTokens("acc-1")).isEqualTo(2);
+    }
+
+    @Test
+    void should_ApplyNewLimit_When_Updated() {
+        TokenBucketTable table = new TokenBucketTable(100, 10, 10, 1000, 60_000, true, evictions::add, clock::get);
+        table.tryConsume("acc-1");
+
+        table.updateLimit(3, 1);
+
+        assertThat(table.availableTokens("acc-1")).isEqualTo(3);
+        assertThat(table.availableTokens("acc-2")).isEqualTo(3);
+        table.tryConsume("acc-1");
+        table.tryConsume("acc-1");
+        table.tryConsume("acc-1");
+        assertThat(table.tryConsume("acc-1")).isEqualTo(1000);
+    }
+
+    @Test
+    void should_GrantExactlyCapacity_When_ConsumedConcurrently() throws Exception {
+        TokenBucketTable table = new TokenBucketTable(100, 1000, 1, 60_000, 60_000, true, evictions::add, clock::get);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    if (table.tryConsume("acc-1") == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(granted.get()).isEqualTo(1000);
+    }
+}